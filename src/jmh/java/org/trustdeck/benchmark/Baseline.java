@@ -0,0 +1,74 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the microbenchmarks with different numbers of threads and the GC profiler. For each number
+ * of threads, the results are written as JSON to the given directory, which defaults to
+ * "src/jmh/results". The results kept there are the baseline that changes of the driver are compared to.
+ * Run with "java -cp target/jmh-benchmarks.jar org.trustdeck.benchmark.Baseline [directory] [regex]".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Baseline {
+    
+    /** Numbers of threads. */
+    private static final int[] THREADS = {1, 4, 16};
+    
+    /** Default directory of the results. */
+    private static final String DIRECTORY = "src/jmh/results";
+    
+    /** Default expression selecting the benchmarks. */
+    private static final String INCLUDE = "org\\.trustdeck\\.benchmark\\..*Benchmark";
+    
+    /**
+     * Main entry point.
+     * 
+     * @param args the directory of the results and an expression selecting the benchmarks, both optional
+     * @throws RunnerException
+     */
+    public static void main(String[] args) throws RunnerException {
+        
+        // Prepare
+        File directory = new File(args.length > 0 ? args[0] : DIRECTORY);
+        String include = args.length > 1 ? args[1] : INCLUDE;
+        directory.mkdirs();
+        
+        // Run
+        for (int threads : THREADS) {
+            System.out.println(" - Running microbenchmarks with " + threads + " threads");
+            Options options = new OptionsBuilder().include(include)
+                                                  .threads(threads)
+                                                  .addProfiler(GCProfiler.class)
+                                                  .resultFormat(ResultFormatType.JSON)
+                                                  .result(new File(directory, "baseline-" + threads + "-threads.json").getPath())
+                                                  .build();
+            new Runner(options).run();
+        }
+        System.out.println(" - Done");
+    }
+}
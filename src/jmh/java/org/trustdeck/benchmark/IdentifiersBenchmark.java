@@ -0,0 +1,88 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call cost of creating and reading identifiers, compared to the previous implementation.
+ * Run with "java -jar target/jmh-benchmarks.jar IdentifiersBenchmark -prof gc -t 4".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdentifiersBenchmark {
+    
+    /** Number of identifiers created before measuring. */
+    private static final int INITIAL_SIZE = 1000000;
+    
+    /** Current implementation. */
+    private Identifiers identifiers;
+    
+    /** Previous implementation. */
+    private LegacyIdentifiers legacy;
+    
+    /**
+     * Creates the initial identifiers.
+     */
+    @Setup
+    public void setup() {
+        this.identifiers = new Identifiers();
+        this.legacy = new LegacyIdentifiers();
+        for (int i = 0; i < INITIAL_SIZE; i++) {
+            identifiers.created(identifiers.create());
+            legacy.create();
+        }
+    }
+    
+    @Benchmark
+    public String create() {
+        return identifiers.format(identifiers.create());
+    }
+    
+    @Benchmark
+    public String read() {
+        return identifiers.format(identifiers.read());
+    }
+    
+    @Benchmark
+    public String legacyCreate() {
+        return legacy.create();
+    }
+    
+    @Benchmark
+    public String legacyRead() {
+        return legacy.read();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
+
+/**
+ * Per-call cost of recording a sample. All threads share one recorder, which rotates through
+ * small files, so that the cost of mapping files ahead of the writers is included.
+ * Run with "java -jar target/jmh-benchmarks.jar SampleRecorderBenchmark -prof gc -t 4".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SampleRecorderBenchmark {
+    
+    /** Latency recorded, in nanoseconds. */
+    private static final long LATENCY = 2500000L;
+    
+    /** Directory of the files. */
+    private File directory;
+    
+    /** Recorder. */
+    private SampleRecorder recorder;
+    
+    /**
+     * Creates the recorder.
+     * 
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("samples").toFile();
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("directory", directory.getPath());
+        settings.put("fileSize", 16);
+        settings.put("maxFiles", 3);
+        this.recorder = new SampleRecorder(new SampleSettings(settings), "jmh");
+    }
+    
+    /**
+     * Closes the recorder and deletes the files.
+     */
+    @TearDown
+    public void tearDown() {
+        this.recorder.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+    
+    @Benchmark
+    public void record() {
+        long now = System.nanoTime();
+        recorder.record(now, now, LATENCY, WorkType.READ, SampleRecorder.STATUS_OK, 1, 12345L, false);
+    }
+}
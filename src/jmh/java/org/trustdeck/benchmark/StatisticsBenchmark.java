@@ -0,0 +1,89 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
+
+/**
+ * Per-call cost of recording operations. All threads share one instance, so that the counters
+ * and recorders are contended like by the workers.
+ * Run with "java -jar target/jmh-benchmarks.jar StatisticsBenchmark -prof gc -t 4".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+    
+    /** Latency recorded, in nanoseconds. */
+    private static final long LATENCY = 2500000L;
+    
+    /** Statistics. */
+    private Statistics statistics;
+    
+    /**
+     * Creates the statistics.
+     */
+    @Setup
+    public void setup() {
+        Configuration config = Configuration.builder()
+                                            .setName("jmh")
+                                            .setCreateRate(23)
+                                            .setReadRate(75)
+                                            .setUpdateRate(1)
+                                            .setDeleteRate(1)
+                                            .setNumThreads(1)
+                                            .setInitialDBSize(1000)
+                                            .setReportingInterval(1000)
+                                            .setReportingIntervalDBSpace(1000)
+                                            .build();
+        this.statistics = new Statistics(config, new WorkSchedule(0));
+    }
+    
+    @Benchmark
+    public void addCreate() {
+        statistics.addCreate(LATENCY);
+    }
+    
+    @Benchmark
+    public void addRead() {
+        statistics.addRead(LATENCY, true);
+    }
+    
+    @Benchmark
+    public void addError() {
+        statistics.addError(WorkType.READ, ErrorType.TIMEOUT, LATENCY);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
+
+/**
+ * Per-call cost of sampling the type of work. All threads share one distribution, like the workers do.
+ * Run with "java -jar target/jmh-benchmarks.jar WorkDistributionBenchmark -prof gc -t 4".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkDistributionBenchmark {
+    
+    /** Distribution of the mostly-read scenario. */
+    private WorkDistribution distribution;
+    
+    /**
+     * Creates the distribution.
+     */
+    @Setup
+    public void setup() {
+        this.distribution = new WorkDistribution(23, 75, 1, 1, 0, 0, 0);
+    }
+    
+    @Benchmark
+    public WorkType sample() {
+        return distribution.sample();
+    }
+}
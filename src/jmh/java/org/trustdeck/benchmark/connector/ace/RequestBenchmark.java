@@ -0,0 +1,147 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark.connector.ace;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.trustdeck.benchmark.connector.ace.ACEService.BodyEncoding;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import jakarta.ws.rs.client.Invocation.Builder;
+
+/**
+ * Per-call cost of building requests: serializing a pseudonym, creating the request object,
+ * with the mapper or with a template, and creating the objects of the Jersey and the JDK
+ * transport from it.
+ * Run with "java -jar target/jmh-benchmarks.jar RequestBenchmark -prof gc -t 4".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+    
+    /** Service serializing bodies with the mapper. */
+    private ACEService service;
+    
+    /** Service writing bodies into templates. */
+    private ACEService templates;
+    
+    /** Token. */
+    private ACEToken token;
+    
+    /** Domain. */
+    private ACEDomain domain;
+    
+    /** Pseudonym. */
+    private ACEPseudonym pseudonym;
+    
+    /** Request reading the pseudonym. */
+    private HTTPRequest read;
+    
+    /** Request creating the pseudonym. */
+    private HTTPRequest create;
+    
+    /** Jersey transport, requests are built but never sent. */
+    private JerseyTransport jersey;
+    
+    /** JDK transport, requests are built but never sent. */
+    private JDKTransport jdk;
+    
+    /**
+     * Creates the objects.
+     */
+    @Setup
+    public void setup() {
+        this.service = new ACEService(URI.create("http://127.0.0.1:18080/api"), ACEService.DEFAULT_MAX_BATCH_SIZE, BodyEncoding.JACKSON);
+        this.templates = new ACEService(URI.create("http://127.0.0.1:18080/api"), ACEService.DEFAULT_MAX_BATCH_SIZE, BodyEncoding.TEMPLATE);
+        this.token = new ACEToken("eyJhbGciOiJSUzI1NiIsInR5cCIgOiAiSldUIiwia2lkIiA6ICJqbWgifQ");
+        this.domain = new ACEDomain("TestStudy", "TST");
+        this.pseudonym = new ACEPseudonym("ID00000000000000000000000012345678", "ID");
+        this.read = service.readPseudonymRequest(token, domain, pseudonym);
+        try {
+            this.create = templates.createPseudonymRequest(token, domain, pseudonym);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        this.jersey = new JerseyTransport(new ConnectionPoolSettings());
+        this.jdk = new JDKTransport(new ConnectionPoolSettings());
+    }
+    
+    /**
+     * Closes the transports.
+     */
+    @TearDown
+    public void tearDown() {
+        this.jersey.close();
+        this.jdk.close();
+    }
+    
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return ACEService.MAPPER.writer().writeValueAsString(pseudonym);
+    }
+    
+    @Benchmark
+    public HTTPRequest createRequest() throws JsonProcessingException {
+        return service.createPseudonymRequest(token, domain, pseudonym);
+    }
+    
+    @Benchmark
+    public HTTPRequest createRequestTemplate() throws JsonProcessingException {
+        return templates.createPseudonymRequest(token, domain, pseudonym);
+    }
+    
+    @Benchmark
+    public HTTPRequest readRequest() {
+        return service.readPseudonymRequest(token, domain, pseudonym);
+    }
+    
+    @Benchmark
+    public Builder jerseyTarget() {
+        return jersey.builder(read);
+    }
+    
+    @Benchmark
+    public Builder jerseyTargetCreate() {
+        return jersey.builder(create);
+    }
+    
+    @Benchmark
+    public java.net.http.HttpRequest jdkRequest() {
+        return jdk.build(read);
+    }
+}
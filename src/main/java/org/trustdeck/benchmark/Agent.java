@@ -0,0 +1,256 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.trustdeck.benchmark.Coordinator.Message;
+import org.trustdeck.benchmark.connector.Connector;
+import org.trustdeck.benchmark.connector.ConnectorException;
+import org.trustdeck.benchmark.connector.ace.ACEConnector;
+import org.trustdeck.benchmark.connector.ace.ClientManager;
+import org.trustdeck.benchmark.connector.ace.HTTPTransport.HTTPTransportType;
+
+/**
+ * A driver process that runs its share of the configurations sent by a {@link Coordinator} and
+ * streams snapshots of its statistics back to it.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Agent {
+    
+    /** Interval of the snapshots sent to the coordinator in milliseconds. */
+    private static final int SNAPSHOT_INTERVAL = 100;
+    
+    /** Address of the coordinator. */
+    private final String host;
+    
+    /** Port of the coordinator. */
+    private final int port;
+    
+    /** Output to the coordinator. */
+    private ObjectOutputStream out;
+    
+    /** Configuration of the current run. */
+    private Configuration config;
+    
+    /** Schedule of the current run. */
+    private WorkSchedule schedule;
+    
+    /** Statistics of the current run. */
+    private Statistics statistics;
+    
+    /** Work provider of the current run. */
+    private WorkProvider provider;
+    
+    /** Workers of the current run. */
+    private WorkerPool workers;
+    
+    /** Recorder of the samples of the current run, null if no samples are recorded. */
+    private SampleRecorder samples;
+    
+    /** Sends snapshots during the current run. */
+    private ScheduledExecutorService sender;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param host
+     * @param port
+     */
+    public Agent(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+    
+    /**
+     * Connects to the coordinator and runs the configurations it sends until it closes the connection.
+     * 
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    public void run() throws IOException, URISyntaxException {
+        
+        Connector connector = new ACEConnector();
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            out = Coordinator.output(socket);
+            ObjectInputStream in = Coordinator.input(socket);
+            
+            // Process messages
+            while (true) {
+                Message message;
+                try {
+                    message = (Message) Coordinator.receive(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (message) {
+                    case PREPARE:
+                        Configuration config = (Configuration) Coordinator.receive(in);
+                        int agent = (int) Coordinator.receive(in);
+                        try {
+                            prepare(connector, config, agent);
+                            Coordinator.send(out, Message.READY, provider.getGauges());
+                        } catch (ConnectorException | IOException | RuntimeException e) {
+                            Coordinator.send(out, Message.FAILED, String.valueOf(e));
+                        }
+                        break;
+                    case START:
+                        start((long) Coordinator.receive(in));
+                        break;
+                    case WARMUP_END:
+                        statistics.setWarmup(false);
+                        break;
+                    case STOP:
+                        stop();
+                        break;
+                    default:
+                        throw new IOException("Unexpected message: " + message);
+                }
+            }
+        } finally {
+            connector.close();
+        }
+    }
+    
+    /**
+     * Prepares a run and creates the initial records of the agent.
+     * 
+     * @param connector
+     * @param config
+     * @param agent the index of the agent
+     * @throws ConnectorException
+     * @throws IOException
+     */
+    private void prepare(Connector connector, Configuration config, int agent) throws ConnectorException, IOException {
+        
+        // Transport of the configuration or the one configured for the service
+        if (config.getTransport() != null) {
+            ClientManager.setTransportType(HTTPTransportType.valueOf(config.getTransport().toUpperCase()));
+        } else {
+            ClientManager.setTransportType(ClientManager.getDefaultTransportType());
+        }
+        
+        // Prepare, the database has been prepared by the coordinator
+        System.out.println(" - Preparing configuration: " + config.getName() + " as agent " + agent);
+        this.config = config;
+        Identifiers identifiers = new Identifiers(KeyDistribution.create(config), config.getMissRatio(), agent);
+        this.schedule = new WorkSchedule(config.getTargetRate());
+        this.statistics = new Statistics(config, schedule);
+        this.provider = new WorkProvider(config, identifiers, statistics);
+        this.provider.setConnector(connector);
+        this.provider.preload();
+        if (config.getSamples() != null) {
+            this.samples = new SampleRecorder(config.getSamples(), config.getName() + "-agent-" + agent + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")));
+            this.provider.setSampleRecorder(samples);
+        }
+        this.workers = new WorkerPool(config, provider, schedule, statistics);
+    }
+    
+    /**
+     * Starts the workers at the given time and sends snapshots periodically.
+     * 
+     * @param startAt wall clock time in milliseconds
+     */
+    private void start(long startAt) {
+        
+        // Wait
+        try {
+            Thread.sleep(Math.max(0L, startAt - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Start, the coordinator ends the warm-up
+        statistics.start();
+        statistics.setWarmup(config.getWarmupTime() > 0 || config.getWarmupOperations() > 0);
+        schedule.start();
+        workers.start();
+        System.out.println(" - Executing configuration: " + config.getName() + " with " + config.getNumThreads() + " threads");
+        
+        // Send snapshots
+        sender = Executors.newSingleThreadScheduledExecutor();
+        sender.scheduleAtFixedRate(() -> {
+            try {
+                Coordinator.send(out, Message.SNAPSHOT, statistics.takeSnapshot(provider.getGauges()));
+            } catch (IOException e) {
+                failed(e);
+            }
+        }, SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stops the run after snapshots could not be sent and reports the failure to the coordinator,
+     * which then stops the agent as usual.
+     * 
+     * @param error
+     */
+    private void failed(IOException error) {
+        System.err.println(" - Sending snapshots failed: " + error.getMessage());
+        schedule.stop();
+        sender.shutdown();
+        try {
+            Coordinator.send(out, Message.FAILED, String.valueOf(error));
+        } catch (IOException e) {
+            // The coordinator notices the lost connection
+        }
+    }
+    
+    /**
+     * Stops the workers, drains them and sends the final snapshot.
+     * 
+     * @throws IOException
+     */
+    private void stop() throws IOException {
+        
+        // Stop workers
+        int inFlight = provider.getInFlight();
+        int abandoned = workers.stop();
+        
+        // Stop sending snapshots
+        sender.shutdown();
+        try {
+            sender.awaitTermination(SNAPSHOT_INTERVAL * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Write samples
+        if (samples != null) {
+            samples.close();
+            samples = null;
+        }
+        
+        // Send the rest
+        Coordinator.send(out, Message.SNAPSHOT, statistics.takeSnapshot(provider.getGauges()));
+        Coordinator.send(out, Message.DONE, inFlight, abandoned);
+        ClientManager.shutdown();
+        System.out.println(" - Done: " + inFlight + " requests in flight at the end, " + abandoned + " abandoned");
+    }
+}
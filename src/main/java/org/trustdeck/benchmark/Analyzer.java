@@ -0,0 +1,157 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.trustdeck.benchmark.SampleAnalysis.Grouping;
+import org.trustdeck.benchmark.SampleAnalysis.TimeReference;
+
+/**
+ * Command line entry point of the offline analysis of recorded samples, see {@link SampleAnalysis}.
+ * Run with "java -jar benchmark.jar analyze [options] files or directories".
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Analyzer {
+    
+    /** Usage. */
+    private static final String USAGE = "Usage: java -jar benchmark.jar analyze [options] <files or directories>\n" +
+                                         "  --window <ms>       width of the windows, 0 for a single window (default: 100)\n" +
+                                         "  --by <property>     group by \"none\", \"operation\", \"worker\" or \"status\" (default: operation)\n" +
+                                         "  --from <time>       ignore samples before this time\n" +
+                                         "  --to <time>         ignore samples at or after this time\n" +
+                                         "  --around <time>     only include samples around this time, see --span\n" +
+                                         "  --span <ms>         distance from the time given by --around (default: 1000)\n" +
+                                         "  --time <reference>  assign samples to windows by their \"intended\" start or by the time they \"completed\" (default: intended)\n" +
+                                         "  --warmup            include samples of the warm-up\n" +
+                                         "  --threads <number>  number of threads scanning the files (default: number of processors)\n" +
+                                         "  --output <prefix>   prefix of the CSV and JSON files written (default: analysis-<time>)\n" +
+                                         "Times are given like 2024-06-30T14:03:12.250 in the local time zone or in milliseconds since the epoch.";
+    
+    public static void main(String[] args) throws IOException {
+        
+        // Defaults
+        int window = 100;
+        Grouping grouping = Grouping.OPERATION;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        long around = Long.MIN_VALUE;
+        long span = 1000L;
+        TimeReference reference = TimeReference.INTENDED;
+        boolean warmup = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = "analysis-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss"));
+        List<String> paths = new ArrayList<>();
+        
+        // Parse arguments
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--window":
+                        window = Integer.parseInt(args[++i]);
+                        break;
+                    case "--by":
+                        grouping = Grouping.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--from":
+                        from = parseTime(args[++i]);
+                        break;
+                    case "--to":
+                        to = parseTime(args[++i]);
+                        break;
+                    case "--around":
+                        around = parseTime(args[++i]);
+                        break;
+                    case "--span":
+                        span = Long.parseLong(args[++i]);
+                        break;
+                    case "--time":
+                        reference = TimeReference.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--warmup":
+                        warmup = true;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--output":
+                        output = args[++i];
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        paths.add(args[i]);
+                }
+            }
+            if (paths.isEmpty()) {
+                throw new IllegalArgumentException("No files given");
+            }
+            if (around != Long.MIN_VALUE) {
+                from = Math.max(from, around - span);
+                to = Math.min(to, around + span);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            System.out.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing value of the last option" : e.getMessage());
+            System.out.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        
+        // Analyze
+        List<File> files = SampleFile.find(paths);
+        System.out.println(" - Analyzing " + files.size() + " files with " + threads + " threads");
+        long start = System.currentTimeMillis();
+        SampleAnalysis analysis = new SampleAnalysis(window, grouping, from, to, warmup, reference);
+        analysis.run(files, threads);
+        long duration = System.currentTimeMillis() - start;
+        System.out.println(" - Analyzed " + analysis.getSamples() + " samples in " + duration + " ms");
+        
+        // Write results
+        BufferedWriter writer = new BufferedWriter(new FileWriter(new File(output + ".csv")));
+        analysis.reportCSV(writer);
+        writer.close();
+        writer = new BufferedWriter(new FileWriter(new File(output + ".json")));
+        analysis.reportJSON(writer);
+        writer.close();
+        System.out.println(" - Results written to " + output + ".csv and " + output + ".json");
+    }
+    
+    /**
+     * Parses a time given in the local time zone, like 2024-06-30T14:03:12.250, or in milliseconds since the epoch.
+     * 
+     * @param value
+     * @return the time in milliseconds since the epoch
+     */
+    private static long parseTime(String value) {
+        if (value.matches("[0-9]+")) {
+            return Long.parseLong(value);
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T')).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class represents a worker that issues work asynchronously and keeps up to a
+ * configurable number of requests in flight at the same time. Completions are handled
+ * by the connector's client, so that a single thread can drive many concurrent requests.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class AsyncWorker implements Runnable {
+    
+    /** Work provider. */
+    private final WorkProvider provider;
+    
+    /** Schedule of the work. */
+    private final WorkSchedule schedule;
+    
+    /** Permits for requests in flight. */
+    private final Semaphore inFlight;
+    
+    /** Statistics, which track the number of active workers. */
+    private final Statistics statistics;
+    
+    /** Number of the worker. */
+    private final int id;
+    
+    /**
+     * Creates a new instance. The worker runs until the schedule is stopped or its thread is interrupted.
+     * Work issued before remains in flight and is tracked by the work provider.
+     * 
+     * @param provider
+     * @param schedule
+     * @param statistics
+     * @param maxInFlight the maximal number of requests in flight
+     * @param id the number of the worker
+     */
+    public AsyncWorker(WorkProvider provider, WorkSchedule schedule, Statistics statistics, int maxInFlight, int id) {
+        this.provider = provider;
+        this.schedule = schedule;
+        this.statistics = statistics;
+        this.id = id;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+    
+    @Override
+    public void run() {
+        
+        // Do forever, failures of the work are recorded by the work itself
+        this.statistics.workerStarted();
+        try {
+            while (true) {
+                
+                // Wait for a free slot
+                try {
+                    this.inFlight.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                
+                // Next work package, waits for its start time in open-loop mode
+                long start = this.schedule.next();
+                if (this.schedule.isStopped()) {
+                    this.inFlight.release();
+                    return;
+                }
+                
+                // Issue work and free the slot when it is done
+                this.provider.submitWork(start, this.id).whenComplete((result, error) -> this.inFlight.release());
+                
+                // See if it's time to stop
+                if (this.schedule.isStopped() || Thread.interrupted()) {
+                    return;
+                }
+            }
+        } finally {
+            this.statistics.workerStopped();
+        }
+    }
+}
@@ -17,6 +17,10 @@
 
 package org.trustdeck.benchmark;
 
+import java.io.Serializable;
+
+import org.trustdeck.benchmark.KeyDistribution.KeyDistributionType;
+
 import lombok.Getter;
 
 /**
@@ -25,7 +29,19 @@ import lombok.Getter;
  * @author Felix Wirth and Armin Mller
  */
 @Getter
-public class Configuration {
+public class Configuration implements Serializable {
+    
+    /** SVUID */
+    private static final long serialVersionUID = -2381734402862215574L;
+    
+    /**
+     * Types of threads the workers run on.
+     */
+    public static enum ExecutionMode {
+        PLATFORM,
+        VIRTUAL,
+        ASYNC
+    }
     
     /** Create rate in percent. */
     private final int createRate;
@@ -63,6 +79,66 @@ public class Configuration {
     /** Interval of database storage check recording in milliseconds. */
     private final int reportingIntervalDBSpace;
     
+    /** Target rate in requests per second for open-loop mode. Zero for closed-loop mode. */
+    private final int targetRate;
+    
+    /** Type of threads the workers run on. */
+    private final ExecutionMode executionMode;
+    
+    /** Maximal number of requests in flight per worker in asynchronous mode. */
+    private final int maxInFlight;
+    
+    /** HTTP transport to use. Null to use the transport configured for the connector. */
+    private final String transport;
+    
+    /** Number of threads creating the initial records. */
+    private final int preloadParallelism;
+    
+    /** Maximal number of create requests in flight per preload thread. */
+    private final int preloadInFlight;
+    
+    /** Batch create rate. */
+    private final int batchCreateRate;
+    
+    /** Batch read rate. */
+    private final int batchReadRate;
+    
+    /** Number of records per batch operation. */
+    private final int batchSize;
+    
+    /** Distribution of the keys accessed by reads, updates, and deletes. */
+    private final KeyDistributionType keyDistribution;
+    
+    /** Skew of the zipfian and latest key distributions. */
+    private final double zipfianTheta;
+    
+    /** Fraction of hot keys of the hotspot key distribution. */
+    private final double hotspotFraction;
+    
+    /** Probability of accessing a hot key in the hotspot key distribution. */
+    private final double hotspotProbability;
+    
+    /** Fraction of reads, updates, and deletes that intentionally target pseudonyms that do not exist. */
+    private final double missRatio;
+    
+    /** Maximal time in milliseconds to wait for the work in flight after the maximal run time. */
+    private final int drainTime;
+    
+    /** Name of the configurations that only differ in the number of threads. */
+    private final String sweepName;
+    
+    /** Minimal duration of the warm-up phase in milliseconds. */
+    private final int warmupTime;
+    
+    /** Minimal number of operations of the warm-up phase. */
+    private final long warmupOperations;
+    
+    /** Service level objective for the search of the maximal sustainable throughput, null to run the configuration once. */
+    private final ServiceLevelObjective slo;
+    
+    /** Settings of the recording of samples, null if no samples are recorded. */
+    private final SampleSettings samples;
+    
     /**
      * Creates a new instance.
      * 
@@ -78,6 +154,26 @@ public class Configuration {
      * @param reportingInterval
      * @param reportDBSpace
      * @param reportingIntervalDBSpace
+     * @param targetRate
+     * @param executionMode
+     * @param maxInFlight
+     * @param transport
+     * @param preloadParallelism
+     * @param preloadInFlight
+     * @param batchCreateRate
+     * @param batchReadRate
+     * @param batchSize
+     * @param keyDistribution
+     * @param zipfianTheta
+     * @param hotspotFraction
+     * @param hotspotProbability
+     * @param missRatio
+     * @param drainTime
+     * @param sweepName
+     * @param warmupTime
+     * @param warmupOperations
+     * @param slo
+     * @param samples
      */
     private Configuration(int createRate,
                           int readRate,
@@ -90,7 +186,27 @@ public class Configuration {
                           int initialDBSize,
                           int reportingInterval,
                           boolean reportDBSpace,
-                          int reportingIntervalDBSpace) {
+                          int reportingIntervalDBSpace,
+                          int targetRate,
+                          ExecutionMode executionMode,
+                          int maxInFlight,
+                          String transport,
+                          int preloadParallelism,
+                          int preloadInFlight,
+                          int batchCreateRate,
+                          int batchReadRate,
+                          int batchSize,
+                          KeyDistributionType keyDistribution,
+                          double zipfianTheta,
+                          double hotspotFraction,
+                          double hotspotProbability,
+                          double missRatio,
+                          int drainTime,
+                          String sweepName,
+                          int warmupTime,
+                          long warmupOperations,
+                          ServiceLevelObjective slo,
+                          SampleSettings samples) {
         this.readRate = readRate;
         this.createRate = createRate;
         this.updateRate = upateRate;
@@ -103,6 +219,64 @@ public class Configuration {
         this.reportingInterval = reportingInterval;
         this.reportDBSpace = reportDBSpace;
         this.reportingIntervalDBSpace = reportingIntervalDBSpace;
+        this.targetRate = targetRate;
+        this.executionMode = executionMode;
+        this.maxInFlight = maxInFlight;
+        this.transport = transport;
+        this.preloadParallelism = preloadParallelism;
+        this.preloadInFlight = preloadInFlight;
+        this.batchCreateRate = batchCreateRate;
+        this.batchReadRate = batchReadRate;
+        this.batchSize = batchSize;
+        this.keyDistribution = keyDistribution;
+        this.zipfianTheta = zipfianTheta;
+        this.hotspotFraction = hotspotFraction;
+        this.hotspotProbability = hotspotProbability;
+        this.missRatio = missRatio;
+        this.drainTime = drainTime;
+        this.sweepName = sweepName;
+        this.warmupTime = warmupTime;
+        this.warmupOperations = warmupOperations;
+        this.slo = slo;
+        this.samples = samples;
+    }
+    
+    /**
+     * Returns a copy of this configuration for a step of the search of the maximal sustainable throughput.
+     * 
+     * @param targetRate the target rate in requests per second
+     * @param maxTime the maximal time of the step in milliseconds
+     * @return the configuration of the step
+     */
+    public Configuration forStep(int targetRate, int maxTime) {
+        return new Configuration(createRate, readRate, updateRate, deleteRate, pingRate, numThreads, maxTime, name + "-" + targetRate + "-rps", initialDBSize, reportingInterval, reportDBSpace, reportingIntervalDBSpace, targetRate, executionMode, maxInFlight, transport, preloadParallelism, preloadInFlight, batchCreateRate, batchReadRate, batchSize, keyDistribution, zipfianTheta, hotspotFraction, hotspotProbability, missRatio, drainTime, sweepName, warmupTime, warmupOperations, slo, samples);
+    }
+    
+    /**
+     * Returns the share of this configuration run by an agent. The number of threads, the initial
+     * size and the target rate are divided among the agents.
+     * 
+     * @param agent the index of the agent
+     * @param agents the number of agents
+     * @return the configuration of the agent
+     */
+    public Configuration forAgent(int agent, int agents) {
+        if (numThreads < agents || (targetRate > 0 && targetRate < agents)) {
+            throw new IllegalStateException("Number of threads and target rate must not be lower than the number of agents.");
+        }
+        return new Configuration(createRate, readRate, updateRate, deleteRate, pingRate, share(numThreads, agent, agents), maxTime, name, share(initialDBSize, agent, agents), reportingInterval, reportDBSpace, reportingIntervalDBSpace, share(targetRate, agent, agents), executionMode, maxInFlight, transport, preloadParallelism, preloadInFlight, batchCreateRate, batchReadRate, batchSize, keyDistribution, zipfianTheta, hotspotFraction, hotspotProbability, missRatio, drainTime, sweepName, warmupTime, warmupOperations, slo, samples);
+    }
+    
+    /**
+     * Returns the share of an agent of a total.
+     * 
+     * @param total
+     * @param agent
+     * @param agents
+     * @return
+     */
+    private static int share(int total, int agent, int agents) {
+        return total / agents + (agent < total % agents ? 1 : 0);
     }
     
     /**
@@ -155,6 +329,66 @@ public class Configuration {
         /** Interval of database storage check recording in milliseconds. */
         private int reportingIntervalDBSpace;
         
+        /** Target rate in requests per second for open-loop mode. */
+        private int targetRate;
+        
+        /** Type of threads the workers run on. */
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+        
+        /** Maximal number of requests in flight per worker in asynchronous mode. */
+        private int maxInFlight = 1;
+        
+        /** HTTP transport to use. */
+        private String transport;
+        
+        /** Number of threads creating the initial records. */
+        private int preloadParallelism = 1;
+        
+        /** Maximal number of create requests in flight per preload thread. */
+        private int preloadInFlight = 1;
+        
+        /** Batch create rate. */
+        private int batchCreateRate = 0;
+        
+        /** Batch read rate. */
+        private int batchReadRate = 0;
+        
+        /** Number of records per batch operation. */
+        private int batchSize = 100;
+        
+        /** Distribution of the keys accessed by reads, updates, and deletes. */
+        private KeyDistributionType keyDistribution = KeyDistributionType.UNIFORM;
+        
+        /** Skew of the zipfian and latest key distributions. */
+        private double zipfianTheta = 0.99d;
+        
+        /** Fraction of hot keys of the hotspot key distribution. */
+        private double hotspotFraction = 0.2d;
+        
+        /** Probability of accessing a hot key in the hotspot key distribution. */
+        private double hotspotProbability = 0.8d;
+        
+        /** Fraction of reads, updates, and deletes that intentionally target pseudonyms that do not exist. */
+        private double missRatio = 0d;
+        
+        /** Maximal time in milliseconds to wait for the work in flight after the maximal run time. */
+        private int drainTime = 10000;
+        
+        /** Name of the configurations that only differ in the number of threads. */
+        private String sweepName;
+        
+        /** Minimal duration of the warm-up phase in milliseconds. */
+        private int warmupTime = 0;
+        
+        /** Minimal number of operations of the warm-up phase. */
+        private long warmupOperations = 0;
+        
+        /** Service level objective for the search of the maximal sustainable throughput, null to run the configuration once. */
+        private ServiceLevelObjective slo = null;
+        
+        /** Settings of the recording of samples, null if no samples are recorded. */
+        private SampleSettings samples = null;
+        
         /**
          * Build the configuration.
          * 
@@ -162,11 +396,11 @@ public class Configuration {
          */
         public Configuration build() {
             // Checks
-            if (createRate < 0 || readRate < 0 || updateRate < 0 || deleteRate < 0 || pingRate < 0 || numThreads < 0 || maxTime < 0 || initialDBSize < 0) {
+            if (createRate < 0 || readRate < 0 || updateRate < 0 || deleteRate < 0 || pingRate < 0 || batchCreateRate < 0 || batchReadRate < 0 || numThreads < 0 || maxTime < 0 || initialDBSize < 0) {
                 throw new IllegalStateException("All number values must be zero or positive!");
             }
             
-            if (readRate + createRate + updateRate + deleteRate + pingRate != 100) {
+            if (readRate + createRate + updateRate + deleteRate + pingRate + batchCreateRate + batchReadRate != 100) {
                 throw new IllegalStateException("All rates combined must add up to exactly one hundred!");
             }
             
@@ -178,7 +412,7 @@ public class Configuration {
                 throw new IllegalStateException("Name must not be null!");
             }
             
-            if (initialDBSize == 0 && (readRate > 0 || updateRate > 0 || deleteRate > 0)) {
+            if (initialDBSize == 0 && (readRate > 0 || updateRate > 0 || deleteRate > 0 || batchReadRate > 0)) {
                 throw new IllegalStateException("If read, update or delete is set, the number of pre-created records must not be null.");
             }
             
@@ -190,8 +424,69 @@ public class Configuration {
                 throw new IllegalStateException("Database storage recorder interval must be greater than zero.");
             }
             
+            if (this.targetRate < 0) {
+                throw new IllegalStateException("Target rate must be zero (closed loop) or positive (open loop).");
+            }
+            
+            if (this.executionMode == null) {
+                throw new IllegalStateException("Execution mode must not be null!");
+            }
+            
+            if (this.maxInFlight <= 0) {
+                throw new IllegalStateException("Maximal number of requests in flight must be greater than zero.");
+            }
+            
+            if (this.preloadParallelism <= 0) {
+                throw new IllegalStateException("Preload parallelism must be greater than zero.");
+            }
+            
+            if (this.preloadInFlight <= 0) {
+                throw new IllegalStateException("Maximal number of preload requests in flight must be greater than zero.");
+            }
+            
+            if (this.batchSize <= 0) {
+                throw new IllegalStateException("Batch size must be greater than zero.");
+            }
+            
+            if (this.keyDistribution == null) {
+                throw new IllegalStateException("Key distribution must not be null!");
+            }
+            
+            if (this.zipfianTheta <= 0d || this.zipfianTheta >= 1d) {
+                throw new IllegalStateException("Zipfian theta must be between zero and one, exclusive.");
+            }
+            
+            if (this.hotspotFraction <= 0d || this.hotspotFraction > 1d) {
+                throw new IllegalStateException("Hotspot fraction must be greater than zero and at most one.");
+            }
+            
+            if (this.hotspotProbability < 0d || this.hotspotProbability > 1d) {
+                throw new IllegalStateException("Hotspot probability must be between zero and one.");
+            }
+            
+            if (this.missRatio < 0d || this.missRatio > 1d) {
+                throw new IllegalStateException("Miss ratio must be between zero and one.");
+            }
+            
+            if (this.drainTime < 0) {
+                throw new IllegalStateException("Drain time must not be negative.");
+            }
+            
+            // Configurations are their own sweep by default
+            if (this.sweepName == null) {
+                this.sweepName = this.name;
+            }
+            
+            if (this.warmupTime < 0) {
+                throw new IllegalStateException("Warm-up time must not be negative.");
+            }
+            
+            if (this.warmupOperations < 0) {
+                throw new IllegalStateException("Number of warm-up operations must not be negative.");
+            }
+            
             // Create object
-            return new Configuration(createRate, readRate, updateRate, deleteRate, pingRate, numThreads, maxTime, name, initialDBSize, reportingInterval, reportDBSpace, reportingIntervalDBSpace);
+            return new Configuration(createRate, readRate, updateRate, deleteRate, pingRate, numThreads, maxTime, name, initialDBSize, reportingInterval, reportDBSpace, reportingIntervalDBSpace, targetRate, executionMode, maxInFlight, transport, preloadParallelism, preloadInFlight, batchCreateRate, batchReadRate, batchSize, keyDistribution, zipfianTheta, hotspotFraction, hotspotProbability, missRatio, drainTime, sweepName, warmupTime, warmupOperations, slo, samples);
         }
         
         // SETTERS SECTION (these allow chaining).
@@ -295,5 +590,185 @@ public class Configuration {
             this.reportDBSpace = reportDBSpace;
             return this;
         }
+        
+        /**
+         * @param targetRate the target rate in requests per second, enables open-loop mode if positive
+         * @return
+         */
+        public ConfigurationBuilder setTargetRate(int targetRate) {
+            this.targetRate = targetRate;
+            return this;
+        }
+        
+        /**
+         * @param executionMode the type of threads the workers run on
+         * @return
+         */
+        public ConfigurationBuilder setExecutionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+        
+        /**
+         * @param maxInFlight the maximal number of requests in flight per worker in asynchronous mode
+         * @return
+         */
+        public ConfigurationBuilder setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+        
+        /**
+         * @param transport the HTTP transport to use, null to use the transport configured for the connector
+         * @return
+         */
+        public ConfigurationBuilder setTransport(String transport) {
+            this.transport = transport;
+            return this;
+        }
+        
+        /**
+         * @param preloadParallelism the number of threads creating the initial records
+         * @return
+         */
+        public ConfigurationBuilder setPreloadParallelism(int preloadParallelism) {
+            this.preloadParallelism = preloadParallelism;
+            return this;
+        }
+        
+        /**
+         * @param preloadInFlight the maximal number of create requests in flight per preload thread
+         * @return
+         */
+        public ConfigurationBuilder setPreloadInFlight(int preloadInFlight) {
+            this.preloadInFlight = preloadInFlight;
+            return this;
+        }
+        
+        /**
+         * @param batchCreateRate the batchCreateRate to set
+         * @return
+         */
+        public ConfigurationBuilder setBatchCreateRate(int batchCreateRate) {
+            this.batchCreateRate = batchCreateRate;
+            return this;
+        }
+        
+        /**
+         * @param batchReadRate the batchReadRate to set - if provided please also configure a number of records to be created while preparing
+         * @return
+         */
+        public ConfigurationBuilder setBatchReadRate(int batchReadRate) {
+            this.batchReadRate = batchReadRate;
+            return this;
+        }
+        
+        /**
+         * @param batchSize the number of records per batch operation
+         * @return
+         */
+        public ConfigurationBuilder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+        
+        /**
+         * @param keyDistribution the distribution of the keys accessed by reads, updates, and deletes
+         * @return
+         */
+        public ConfigurationBuilder setKeyDistribution(KeyDistributionType keyDistribution) {
+            this.keyDistribution = keyDistribution;
+            return this;
+        }
+        
+        /**
+         * @param zipfianTheta the skew of the zipfian and latest key distributions
+         * @return
+         */
+        public ConfigurationBuilder setZipfianTheta(double zipfianTheta) {
+            this.zipfianTheta = zipfianTheta;
+            return this;
+        }
+        
+        /**
+         * @param hotspotFraction the fraction of hot keys of the hotspot key distribution
+         * @return
+         */
+        public ConfigurationBuilder setHotspotFraction(double hotspotFraction) {
+            this.hotspotFraction = hotspotFraction;
+            return this;
+        }
+        
+        /**
+         * @param hotspotProbability the probability of accessing a hot key in the hotspot key distribution
+         * @return
+         */
+        public ConfigurationBuilder setHotspotProbability(double hotspotProbability) {
+            this.hotspotProbability = hotspotProbability;
+            return this;
+        }
+        
+        /**
+         * @param missRatio the fraction of reads, updates, and deletes that intentionally target pseudonyms that do not exist
+         * @return
+         */
+        public ConfigurationBuilder setMissRatio(double missRatio) {
+            this.missRatio = missRatio;
+            return this;
+        }
+        
+        /**
+         * @param drainTime the maximal time in milliseconds to wait for the work in flight after the maximal run time
+         * @return
+         */
+        public ConfigurationBuilder setDrainTime(int drainTime) {
+            this.drainTime = drainTime;
+            return this;
+        }
+        
+        /**
+         * @param sweepName the name shared by the configurations that only differ in the number of threads
+         * @return
+         */
+        public ConfigurationBuilder setSweepName(String sweepName) {
+            this.sweepName = sweepName;
+            return this;
+        }
+        
+        /**
+         * @param warmupTime the minimal duration of the warm-up phase in milliseconds, excluded from the measurement
+         * @return
+         */
+        public ConfigurationBuilder setWarmupTime(int warmupTime) {
+            this.warmupTime = warmupTime;
+            return this;
+        }
+        
+        /**
+         * @param warmupOperations the minimal number of operations of the warm-up phase, excluded from the measurement
+         * @return
+         */
+        public ConfigurationBuilder setWarmupOperations(long warmupOperations) {
+            this.warmupOperations = warmupOperations;
+            return this;
+        }
+        
+        /**
+         * @param slo the service level objective for the search of the maximal sustainable throughput, null to run the configuration once
+         * @return
+         */
+        public ConfigurationBuilder setSlo(ServiceLevelObjective slo) {
+            this.slo = slo;
+            return this;
+        }
+        
+        /**
+         * @param samples settings of the recording of one sample per request, null to record none
+         * @return
+         */
+        public ConfigurationBuilder setSamples(SampleSettings samples) {
+            this.samples = samples;
+            return this;
+        }
     }
 }
@@ -0,0 +1,540 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.trustdeck.benchmark.Statistics.Snapshot;
+import org.trustdeck.benchmark.connector.ace.ConnectionPool;
+import org.trustdeck.benchmark.connector.ace.TokenHolder;
+
+/**
+ * Coordinates several driver processes (agents), so that the load is not limited by the resources
+ * of a single driver. Each agent runs a share of the threads, the initial records and the target
+ * rate of a configuration with a disjoint range of identifiers. The agents stream snapshots of their
+ * statistics to the coordinator, which merges them and reports as if the work had been done locally.
+ * Agents are either spawned as local processes or started on other hosts with
+ * {@code java -jar benchmark.jar agent <host>:<port>}. Agents are started together at a given wall
+ * clock time, so their clocks are expected to be synchronized.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Coordinator implements Closeable {
+    
+    /**
+     * Messages exchanged between the coordinator and the agents.
+     */
+    public static enum Message {
+        /** Coordinator to agent, followed by the configuration and the index of the agent. */
+        PREPARE,
+        /** Agent to coordinator, the initial records have been created, followed by the gauges of the agent. */
+        READY,
+        /** Coordinator to agent, followed by the wall clock time at which to start. */
+        START,
+        /** Agent to coordinator, followed by a snapshot of the statistics. */
+        SNAPSHOT,
+        /** Coordinator to agent, the warm-up has ended. */
+        WARMUP_END,
+        /** Coordinator to agent, stop and drain. */
+        STOP,
+        /** Agent to coordinator, followed by the numbers of requests in flight when stopping and after draining. */
+        DONE,
+        /** Agent to coordinator, followed by an error message. During a run, the agent stops and waits for STOP. */
+        FAILED
+    }
+    
+    /** Classes that may be received. */
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter("org.trustdeck.benchmark.**;java.lang.*;java.util.*;!*");
+    
+    /** Delay between sending the start time and starting in milliseconds. */
+    private static final int START_DELAY = 200;
+    
+    /** Time to wait for agents to connect and to answer in milliseconds, in addition to the drain time. */
+    private static final int TIMEOUT = 60000;
+    
+    /**
+     * Connection to an agent.
+     */
+    private static class Connection {
+        
+        /** Socket. */
+        private final Socket socket;
+        
+        /** Input. */
+        private final ObjectInputStream in;
+        
+        /** Output. */
+        private final ObjectOutputStream out;
+        
+        /** Last gauges of the agent, with the waits for connections accumulated since the last report. Guarded by the connection. */
+        private final Map<String, Long> gauges = new LinkedHashMap<>();
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param socket
+         * @throws IOException
+         */
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.out = output(socket);
+            this.in = input(socket);
+        }
+    }
+    
+    /** Number of agents. */
+    private final int agents;
+    
+    /** Address to listen on. */
+    private final String host;
+    
+    /** Port to listen on. */
+    private final int port;
+    
+    /** Whether to spawn the agents as local processes. */
+    private final boolean spawn;
+    
+    /** Options of the virtual machines of spawned agents. */
+    private final List<String> jvmOptions = new ArrayList<>();
+    
+    /** Connections to the agents. */
+    private final List<Connection> connections = new ArrayList<>();
+    
+    /** Spawned agents. */
+    private final List<Process> processes = new ArrayList<>();
+    
+    /** Agents that have not finished the current configuration. */
+    private CountDownLatch running;
+    
+    /** Number of requests in flight when the agents were stopped. */
+    private final AtomicInteger inFlightAtStop = new AtomicInteger();
+    
+    /** Number of requests in flight after the agents drained. */
+    private final AtomicInteger abandoned = new AtomicInteger();
+    
+    /** First failure of an agent during the current configuration, null if there was none. */
+    private final AtomicReference<String> failure = new AtomicReference<>();
+    
+    /**
+     * Creates a coordinator from the given configuration. Missing values are set to their defaults.
+     * 
+     * @param config the distributed section of the configuration file
+     */
+    @SuppressWarnings("unchecked")
+    public Coordinator(Map<String, Object> config) {
+        this.agents = (int) config.getOrDefault("agents", 2);
+        this.host = (String) config.getOrDefault("host", "127.0.0.1");
+        this.port = (int) config.getOrDefault("port", 7077);
+        this.spawn = (boolean) config.getOrDefault("spawn", true);
+        if (config.containsKey("jvmOptions")) {
+            this.jvmOptions.addAll((List<String>) config.get("jvmOptions"));
+        }
+        
+        // Checks
+        if (agents <= 0) {
+            throw new IllegalStateException("Number of agents must be greater than zero.");
+        }
+    }
+    
+    /**
+     * Returns the number of agents.
+     * 
+     * @return
+     */
+    public int getAgents() {
+        return agents;
+    }
+    
+    /**
+     * Spawns the agents, if configured, and waits until all agents have connected.
+     * 
+     * @throws IOException
+     */
+    public void connect() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, agents, InetAddress.getByName(host))) {
+            server.setSoTimeout(TIMEOUT);
+            
+            // Spawn
+            if (spawn) {
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                for (int i = 0; i < agents; i++) {
+                    List<String> command = new ArrayList<>();
+                    command.add(java);
+                    command.addAll(jvmOptions);
+                    command.add("-cp");
+                    command.add(System.getProperty("java.class.path"));
+                    command.add(Main.class.getName());
+                    command.add("agent");
+                    command.add(InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getLocalPort());
+                    processes.add(new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(new File("agent-" + i + ".log")).start());
+                }
+            }
+            
+            // Accept
+            while (connections.size() < agents) {
+                System.out.print("\r - Preparing agents: " + connections.size() + " of " + agents + " connected");
+                connections.add(new Connection(server.accept()));
+            }
+            System.out.println("\r - Preparing agents: " + agents + " of " + agents + " connected\t\t\t\t[DONE]");
+        }
+    }
+    
+    /**
+     * Sends a configuration to the agents and waits until they have created their share of the initial records.
+     * 
+     * @param config
+     * @throws IOException
+     */
+    public void prepare(Configuration config) throws IOException {
+        
+        // Send
+        for (int i = 0; i < agents; i++) {
+            send(connections.get(i), Message.PREPARE, config.forAgent(i, agents), i);
+        }
+        
+        // Wait for all agents
+        for (int i = 0; i < agents; i++) {
+            Message message = receive(connections.get(i));
+            if (message == Message.FAILED) {
+                throw new IOException("Agent " + i + " failed: " + receive(connections.get(i)));
+            } else if (message != Message.READY) {
+                throw new IOException("Unexpected message from agent " + i + ": " + message);
+            }
+            
+            // Initial gauges, so that all of them are reported from the start, without the waits of the preload
+            Connection connection = connections.get(i);
+            Map<String, Long> gauges = receive(connection);
+            synchronized (connection) {
+                connection.gauges.clear();
+                connection.gauges.putAll(gauges);
+                resetWaits(connection.gauges);
+            }
+        }
+    }
+    
+    /**
+     * Starts the agents and returns at the time the agents start. Snapshots of the agents are added to the statistics.
+     * 
+     * @param statistics
+     * @throws IOException
+     */
+    public void start(Statistics statistics) throws IOException {
+        
+        // Prepare
+        running = new CountDownLatch(agents);
+        inFlightAtStop.set(0);
+        abandoned.set(0);
+        failure.set(null);
+        
+        // Start receiving
+        for (int i = 0; i < agents; i++) {
+            final int agent = i;
+            final Connection connection = connections.get(i);
+            Thread thread = new Thread(() -> receive(agent, connection, statistics), "coordinator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        // Start agents
+        long startAt = System.currentTimeMillis() + START_DELAY;
+        for (Connection connection : connections) {
+            send(connection, Message.START, startAt);
+        }
+        try {
+            Thread.sleep(Math.max(0L, startAt - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Tells the agents that the warm-up has ended, so that they stop flagging their samples as warm-up.
+     * 
+     * @throws IOException
+     */
+    public void endWarmup() throws IOException {
+        for (Connection connection : connections) {
+            send(connection, Message.WARMUP_END);
+        }
+    }
+    
+    /**
+     * Returns the gauges merged over all agents. Counts are summed, means are weighted with the
+     * number of waits and maxima are maximized. The waits for connections are aggregated since
+     * the last call, this method should therefore only be called by the reporting thread.
+     * 
+     * @return the gauges by name
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        for (Connection connection : connections) {
+            synchronized (connection) {
+                merge(gauges, connection.gauges, true);
+                resetWaits(connection.gauges);
+            }
+        }
+        return gauges;
+    }
+    
+    /**
+     * Stops the agents and waits until they have drained.
+     * 
+     * @param drainTime the maximal time for draining in milliseconds
+     * @return the number of requests still in flight after the drain time
+     * @throws IOException if an agent failed during the run, as its load is missing from the statistics
+     */
+    public int stop(int drainTime) throws IOException {
+        for (int i = 0; i < agents; i++) {
+            try {
+                send(connections.get(i), Message.STOP);
+            } catch (IOException e) {
+                failure.compareAndSet(null, "Agent " + i + " failed: " + e);
+            }
+        }
+        try {
+            if (!running.await(drainTime + TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Agents did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure.get() != null) {
+            throw new IOException(failure.get());
+        }
+        return abandoned.get();
+    }
+    
+    /**
+     * Returns the number of requests in flight when the agents were stopped.
+     * 
+     * @return
+     */
+    public int getInFlightAtStop() {
+        return inFlightAtStop.get();
+    }
+    
+    /**
+     * Closes the connections, which terminates the agents, and waits for spawned agents to exit.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : connections) {
+            connection.socket.close();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    /**
+     * Receives the messages of an agent during a run, until it is done.
+     * 
+     * @param agent
+     * @param connection
+     * @param statistics
+     */
+    private void receive(int agent, Connection connection, Statistics statistics) {
+        try {
+            while (true) {
+                Message message = receive(connection);
+                if (message == Message.SNAPSHOT) {
+                    Snapshot snapshot = (Snapshot) receive(connection);
+                    statistics.add(snapshot);
+                    synchronized (connection) {
+                        merge(connection.gauges, snapshot.getGauges(), false);
+                    }
+                } else if (message == Message.DONE) {
+                    inFlightAtStop.addAndGet((int) receive(connection));
+                    abandoned.addAndGet((int) receive(connection));
+                    return;
+                } else if (message == Message.FAILED) {
+                    String error = receive(connection);
+                    System.err.println("Agent " + agent + " failed: " + error);
+                    failure.compareAndSet(null, "Agent " + agent + " failed: " + error);
+                } else {
+                    throw new IOException("Unexpected message: " + message);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Agent " + agent + " failed: " + e);
+            failure.compareAndSet(null, "Agent " + agent + " failed: " + e);
+        } finally {
+            running.countDown();
+        }
+    }
+    
+    /**
+     * Merges gauges into others. The waits for connections are accumulated. Other gauges are
+     * replaced with later ones of the same agent, or combined over different agents.
+     * 
+     * @param gauges the gauges to merge into
+     * @param other the gauges to merge
+     * @param agents whether the gauges are of different agents
+     */
+    private static void merge(Map<String, Long> gauges, Map<String, Long> other, boolean agents) {
+        
+        // Mean weighted with the number of waits
+        long count = gauges.getOrDefault(ConnectionPool.GAUGE_WAITS, 0L);
+        long otherCount = other.getOrDefault(ConnectionPool.GAUGE_WAITS, 0L);
+        long mean = gauges.getOrDefault(ConnectionPool.GAUGE_WAIT_MEAN, 0L);
+        long otherMean = other.getOrDefault(ConnectionPool.GAUGE_WAIT_MEAN, 0L);
+        long merged = count + otherCount == 0 ? 0L : (mean * count + otherMean * otherCount) / (count + otherCount);
+        
+        // Merge
+        for (Map.Entry<String, Long> gauge : other.entrySet()) {
+            switch (gauge.getKey()) {
+                case ConnectionPool.GAUGE_WAITS:
+                    gauges.merge(gauge.getKey(), gauge.getValue(), Long::sum);
+                    break;
+                case ConnectionPool.GAUGE_WAIT_MEAN:
+                    gauges.put(gauge.getKey(), merged);
+                    break;
+                case ConnectionPool.GAUGE_WAIT_MAX:
+                    gauges.merge(gauge.getKey(), gauge.getValue(), Math::max);
+                    break;
+                case TokenHolder.GAUGE_REFRESH_TIME:
+                    gauges.merge(gauge.getKey(), gauge.getValue(), agents ? Math::max : (previous, latest) -> latest);
+                    break;
+                default:
+                    gauges.merge(gauge.getKey(), gauge.getValue(), agents ? Long::sum : (previous, latest) -> latest);
+            }
+        }
+    }
+    
+    /**
+     * Resets the waits for connections accumulated in the gauges.
+     * 
+     * @param gauges
+     */
+    private static void resetWaits(Map<String, Long> gauges) {
+        gauges.replace(ConnectionPool.GAUGE_WAITS, 0L);
+        gauges.replace(ConnectionPool.GAUGE_WAIT_MEAN, 0L);
+        gauges.replace(ConnectionPool.GAUGE_WAIT_MAX, 0L);
+    }
+    
+    /**
+     * Sends a message. Thread safe.
+     * 
+     * @param connection
+     * @param message
+     * @param payload
+     * @throws IOException
+     */
+    private static void send(Connection connection, Message message, Object... payload) throws IOException {
+        send(connection.out, message, payload);
+    }
+    
+    /**
+     * Receives an object.
+     * 
+     * @param connection
+     * @return the message or payload
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T receive(Connection connection) throws IOException {
+        return (T) receive(connection.in);
+    }
+    
+    /**
+     * Sends a message followed by its payload. Thread safe.
+     * 
+     * @param out
+     * @param message
+     * @param payload
+     * @throws IOException
+     */
+    static void send(ObjectOutputStream out, Message message, Object... payload) throws IOException {
+        synchronized (out) {
+            out.writeObject(message);
+            for (Object object : payload) {
+                out.writeObject(object);
+            }
+            out.reset();
+            out.flush();
+        }
+    }
+    
+    /**
+     * Receives a message or payload.
+     * 
+     * @param in
+     * @return the message or payload
+     * @throws IOException
+     */
+    static Object receive(ObjectInputStream in) throws IOException {
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    /**
+     * Opens the output of a socket.
+     * 
+     * @param socket
+     * @return
+     * @throws IOException
+     */
+    static ObjectOutputStream output(Socket socket) throws IOException {
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.flush();
+        return out;
+    }
+    
+    /**
+     * Opens the input of a socket, which only accepts the classes of the protocol.
+     * 
+     * @param socket
+     * @return
+     * @throws IOException
+     */
+    static ObjectInputStream input(Socket socket) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+        in.setObjectInputFilter(FILTER);
+        return in;
+    }
+}
@@ -17,21 +17,23 @@
 
 package org.trustdeck.benchmark;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.lang3.StringUtils;
-
 /**
- * Creates and accesses IDs by incrementing from a start number.
+ * Creates and accesses IDs by incrementing from a start number. Keys are numbers, which are
+ * formatted into IDs with {@link #format(long)}. IDs are formatted into reusable per-thread
+ * buffers and sampled from per-thread random streams, so that the workers do not contend on
+ * shared state apart from the counter. Keys are only read after they have been reported as
+ * created and until they have been reported as deleted, apart from intentional misses.
  * 
  * @author Felix Wirth, Armin Mller
  *
  */
 public class Identifiers {
     
-    /** Provides randomness. */
-    private static final Random RANDOM  = new Random(735576300);
+    /** Seed of the root random stream from which the per-thread streams are split. */
+    private static final long SEED = 735576300;
     
     /** Prefix. */
     private static final String PREFIX  = "ID";
@@ -39,32 +41,216 @@ public class Identifiers {
     /** Length. */
     private static final int LENGTH  = 32;
     
+    /** Start of the range of keys that are never created, used for intentional misses. */
+    private static final long MISSING = 1L << 62;
+    
+    /** Number of keys sampled from the key distribution until one is live. */
+    private static final int MAX_ATTEMPTS = 16;
+    
+    /** Number of words of the live keys examined if sampling did not find a live key. */
+    private static final int SCAN_LIMIT = 1024;
+    
+    /**
+     * Per-thread state.
+     */
+    private static class Local {
+        
+        /** Buffer holding the last formatted identifier. */
+        private final char[] buffer = new char[LENGTH];
+        
+        /** Index of the first digit of the last formatted identifier. */
+        private int first = LENGTH;
+        
+        /** Random stream of the thread. */
+        private final SplittableRandom random;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param random
+         */
+        private Local(SplittableRandom random) {
+            this.random = random;
+            PREFIX.getChars(0, PREFIX.length(), buffer, 0);
+            for (int i = PREFIX.length(); i < LENGTH; i++) {
+                buffer[i] = '0';
+            }
+        }
+        
+        /**
+         * Formats the number, padded with zeros to the desired length.
+         * 
+         * @param number
+         * @return the identifier
+         */
+        private String format(long number) {
+            
+            // Write digits from the end
+            int position = LENGTH;
+            do {
+                buffer[--position] = (char) ('0' + (number % 10));
+                number /= 10;
+            } while (number > 0);
+            
+            // Reset digits of a longer previous number
+            for (int i = first; i < position; i++) {
+                buffer[i] = '0';
+            }
+            first = position;
+            return new String(buffer);
+        }
+    }
+    
     /** Atomic counter. */
     private final AtomicLong counter = new AtomicLong(0);
+    
+    /** Root random stream. Only accessed when a thread uses this instance for the first time. */
+    private final SplittableRandom root = new SplittableRandom(SEED);
+    
+    /** Per-thread state. */
+    private final ThreadLocal<Local> local = ThreadLocal.withInitial(() -> new Local(split()));
+    
+    /** Distribution of the keys read. */
+    private final KeyDistribution distribution;
+    
+    /** Fraction of reads that intentionally target keys that do not exist. */
+    private final double missRatio;
+    
+    /** Keys that currently exist. */
+    private final LiveKeys live = new LiveKeys();
+    
+    /** Offset added to keys when they are formatted, so that several drivers use disjoint identifiers. */
+    private final long offset;
 
     /**
-     * Creates a new instance.
+     * Creates a new instance, reading keys uniformly without intentional misses.
      */
     public Identifiers() {
-        // Empty by design
+        this(new KeyDistribution.Uniform(), 0d);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param distribution the distribution of the keys read
+     * @param missRatio the fraction of reads that intentionally target keys that do not exist
+     */
+    public Identifiers(KeyDistribution distribution, double missRatio) {
+        this(distribution, missRatio, 0);
     }
 
     /**
-     * Create the next identifier.
+     * Creates a new instance, whose identifiers are disjoint from those of instances with other ranges.
      * 
-     * @return the next number as a string, padded to the desired length
+     * @param distribution the distribution of the keys read
+     * @param missRatio the fraction of reads that intentionally target keys that do not exist
+     * @param range the index of the range of identifiers
      */
-    public String create() {
-        return PREFIX + StringUtils.leftPad(String.valueOf(counter.incrementAndGet()), LENGTH - PREFIX.length(), "0");
+    public Identifiers(KeyDistribution distribution, double missRatio, int range) {
+        this.distribution = distribution;
+        this.missRatio = missRatio;
+        this.offset = range * LiveKeys.CAPACITY;
     }
 
     /**
-     * Read the next identifier.
+     * Create the next key. It is read once it has been reported with {@link #created(long)}.
+     * 
+     * @return the next key
+     */
+    public long create() {
+        return counter.incrementAndGet();
+    }
+
+    /**
+     * Read the next key. Chosen from the live keys according to the key distribution, or, with the
+     * probability given by the miss ratio, a key that does not exist.
+     * 
+     * @implNote keys are sampled from the distribution until a live key is found. After several
+     *           attempts, the next live key following a sampled one is returned. If there is none
+     *           nearby, the whole keyspace is scanned. A key that does not exist is only returned
+     *           if no key is live.
+     * @return the key
+     */
+    public long read() {
+        Local state = local.get();
+        long n = counter.get();
+        
+        // Intentional miss
+        if (n == 0 || (missRatio > 0d && state.random.nextDouble() < missRatio)) {
+            return missing(state);
+        }
+        
+        // Sample live key
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            long key = distribution.sample(state.random, n);
+            if (live.contains(key)) {
+                return key;
+            }
+        }
+        long start = distribution.sample(state.random, n);
+        long key = live.next(start, n, SCAN_LIMIT);
+        
+        // Scan whole keyspace, as long as there are live keys
+        if (key == -1 && live.size() > 0) {
+            key = live.next(start, n);
+        }
+        return key != -1 ? key : missing(state);
+    }
+    
+    /**
+     * Marks a key as created.
+     * 
+     * @param key
+     */
+    public void created(long key) {
+        live.add(key);
+    }
+    
+    /**
+     * Marks a key as deleted.
+     * 
+     * @param key
+     * @return whether the key has been live
+     */
+    public boolean deleted(long key) {
+        return live.remove(key);
+    }
+    
+    /**
+     * Returns the number of keys that currently exist.
+     * 
+     * @return
+     */
+    public long getLiveKeys() {
+        return live.size();
+    }
+    
+    /**
+     * Formats a key into an identifier.
+     * 
+     * @param key
+     * @return the key as a string, padded to the desired length
+     */
+    public String format(long key) {
+        return local.get().format(key < MISSING ? key + offset : key);
+    }
+    
+    /**
+     * Returns a key that is never created.
+     * 
+     * @param state
+     * @return
+     */
+    private long missing(Local state) {
+        return MISSING + state.random.nextLong(MISSING);
+    }
+    
+    /**
+     * Splits a new random stream from the root stream.
      * 
-     * @implNote this does not respect already deleted numbers so that this can return non-existing IDs
-     * @return the next number as a string, padded to the desired length
+     * @return the random stream
      */
-    public String read() {
-        return PREFIX + StringUtils.leftPad(String.valueOf(RANDOM.nextInt((int) counter.get())), LENGTH - PREFIX.length(), "0");
+    private synchronized SplittableRandom split() {
+        return root.split();
     }
 }
@@ -0,0 +1,259 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Selects the keys accessed by reads, updates and deletes from the keys 1..n created so far.
+ * All distributions sample in constant time without materializing the keyspace, and adapt
+ * to the keyspace growing during the benchmark. Thread safe, as long as each thread provides
+ * its own random stream.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public abstract class KeyDistribution {
+    
+    /**
+     * Types of key distributions.
+     */
+    public static enum KeyDistributionType {
+        UNIFORM,
+        ZIPFIAN,
+        HOTSPOT,
+        LATEST
+    }
+    
+    /**
+     * Creates the key distribution of a configuration.
+     * 
+     * @param config
+     * @return the distribution
+     */
+    public static KeyDistribution create(Configuration config) {
+        switch (config.getKeyDistribution()) {
+            case UNIFORM:
+                return new Uniform();
+            case ZIPFIAN:
+                return new Zipfian(config.getZipfianTheta(), false);
+            case HOTSPOT:
+                return new Hotspot(config.getHotspotFraction(), config.getHotspotProbability());
+            case LATEST:
+                return new Zipfian(config.getZipfianTheta(), true);
+            default:
+                throw new IllegalStateException("Unknown key distribution: " + config.getKeyDistribution());
+        }
+    }
+    
+    /**
+     * Samples a key.
+     * 
+     * @param random the random stream of the calling thread
+     * @param n the number of keys, must be positive
+     * @return a key from 1..n
+     */
+    public abstract long sample(SplittableRandom random, long n);
+    
+    /**
+     * Every key is equally likely.
+     */
+    public static class Uniform extends KeyDistribution {
+        
+        @Override
+        public long sample(SplittableRandom random, long n) {
+            return random.nextLong(n) + 1;
+        }
+    }
+    
+    /**
+     * A fraction of the keys, the ones created first, receives a given share of the accesses.
+     * Keys within the hot and the cold set are equally likely.
+     */
+    public static class Hotspot extends KeyDistribution {
+        
+        /** Fraction of hot keys. */
+        private final double fraction;
+        
+        /** Probability of accessing a hot key. */
+        private final double probability;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param fraction the fraction of hot keys
+         * @param probability the probability of accessing a hot key
+         */
+        public Hotspot(double fraction, double probability) {
+            this.fraction = fraction;
+            this.probability = probability;
+        }
+        
+        @Override
+        public long sample(SplittableRandom random, long n) {
+            long hot = Math.max(1L, (long) (n * fraction));
+            if (hot >= n || random.nextDouble() < probability) {
+                return random.nextLong(hot) + 1;
+            } else {
+                return hot + random.nextLong(n - hot) + 1;
+            }
+        }
+    }
+    
+    /**
+     * Zipfian distribution with the algorithm of Gray et al., "Quickly generating billion-record
+     * synthetic databases", SIGMOD 1994. The normalization constant zeta(n) is summed exactly for
+     * small n and approximated with the Euler-Maclaurin formula for large n, so that it can be
+     * recomputed in constant time when the keyspace has changed by more than {@link #RESIZE_THRESHOLD}.
+     * Samples always cover the current keyspace. The most popular keys are the ones created first,
+     * or, for the latest distribution, the ones created last.
+     */
+    public static class Zipfian extends KeyDistribution {
+        
+        /** Number of terms of zeta(n) that are summed exactly. */
+        private static final int EXACT_TERMS = 1024;
+        
+        /**
+         * Relative change of the keyspace size at which the constants are recomputed. Creates change the
+         * size between almost every pair of samples, and recomputing it every time would make all workers
+         * write the shared constants.
+         */
+        private static final double RESIZE_THRESHOLD = 0.01d;
+        
+        /**
+         * Constants derived from the size of the keyspace.
+         */
+        private static class Constants {
+            
+            /** Number of keys. */
+            private final long n;
+            
+            /** Normalization constant. */
+            private final double zetan;
+            
+            /** Derived constant. */
+            private final double eta;
+            
+            /**
+             * Creates a new instance.
+             * 
+             * @param n
+             * @param zetan
+             * @param eta
+             */
+            private Constants(long n, double zetan, double eta) {
+                this.n = n;
+                this.zetan = zetan;
+                this.eta = eta;
+            }
+        }
+        
+        /** Skew. */
+        private final double theta;
+        
+        /** Derived constant. */
+        private final double alpha;
+        
+        /** Normalization constant for two keys. */
+        private final double zeta2;
+        
+        /** Whether the most popular keys are the ones created last. */
+        private final boolean latest;
+        
+        /** Partial sums of zeta for the first terms. */
+        private final double[] partialSums = new double[EXACT_TERMS + 1];
+        
+        /** Constants of a recent keyspace size. Replaced when the keyspace has changed significantly. */
+        private volatile Constants constants;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param theta the skew, between zero and one, exclusive
+         * @param latest whether the most popular keys are the ones created last
+         */
+        public Zipfian(double theta, boolean latest) {
+            this.theta = theta;
+            this.alpha = 1d / (1d - theta);
+            this.zeta2 = 1d + Math.pow(0.5d, theta);
+            this.latest = latest;
+            for (int i = 1; i <= EXACT_TERMS; i++) {
+                partialSums[i] = partialSums[i - 1] + Math.pow(i, -theta);
+            }
+            this.constants = constants(1);
+        }
+        
+        @Override
+        public long sample(SplittableRandom random, long n) {
+            
+            // Recompute constants if the keyspace has changed significantly
+            Constants constants = this.constants;
+            if (Math.abs(n - constants.n) > constants.n * RESIZE_THRESHOLD) {
+                constants = constants(n);
+                this.constants = constants;
+            }
+            
+            // Sample rank
+            double u = random.nextDouble();
+            double uz = u * constants.zetan;
+            long rank;
+            if (uz < 1d) {
+                rank = 1;
+            } else if (uz < zeta2) {
+                rank = 2;
+            } else {
+                rank = 1 + (long) (n * Math.pow(constants.eta * u - constants.eta + 1d, alpha));
+            }
+            rank = Math.min(rank, n);
+            
+            // Map to key
+            return latest ? n - rank + 1 : rank;
+        }
+        
+        /**
+         * Computes the constants for the given keyspace size.
+         * 
+         * @param n
+         * @return the constants
+         */
+        private Constants constants(long n) {
+            double zetan = zeta(n);
+            double eta = n <= 1 ? 0d : (1d - Math.pow(2d / n, 1d - theta)) / (1d - zeta2 / zetan);
+            return new Constants(n, zetan, eta);
+        }
+        
+        /**
+         * Computes the sum of i^-theta for i in 1..n.
+         * 
+         * @param n
+         * @return the sum
+         */
+        private double zeta(long n) {
+            if (n <= EXACT_TERMS) {
+                return partialSums[(int) n];
+            }
+            
+            // Euler-Maclaurin approximation of the remaining terms
+            double a = EXACT_TERMS + 1;
+            double b = n;
+            double integral = (Math.pow(b, 1d - theta) - Math.pow(a, 1d - theta)) / (1d - theta);
+            double ends = (Math.pow(a, -theta) + Math.pow(b, -theta)) / 2d;
+            double derivatives = (-theta * Math.pow(b, -theta - 1d) + theta * Math.pow(a, -theta - 1d)) / 12d;
+            return partialSums[EXACT_TERMS] + integral + ends + derivatives;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent bitset of the keys that currently exist in the service. The bitset is split into
+ * chunks, which are allocated when the keyspace grows into them, so that the memory consumption
+ * is one bit per key created. Updates are lock-free. Thread safe.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class LiveKeys {
+    
+    /** Number of bits addressed by a word. */
+    private static final int WORD_BITS = 6;
+    
+    /** Number of words in a chunk, as a power of two. */
+    private static final int CHUNK_BITS = 14;
+    
+    /** Number of words in a chunk. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    
+    /** Maximal number of chunks. Allows for 2^36 keys. */
+    private static final int MAX_CHUNKS = 1 << 16;
+    
+    /** Number of keys that can be tracked. */
+    static final long CAPACITY = (long) MAX_CHUNKS << (CHUNK_BITS + WORD_BITS);
+    
+    /** Chunks of words. */
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    
+    /** Number of live keys. */
+    private final AtomicLong size = new AtomicLong();
+    
+    /**
+     * Marks a key as live.
+     * 
+     * @param key
+     */
+    public void add(long key) {
+        if (key < 0 || key >= CAPACITY) {
+            throw new IllegalStateException("Key exceeds the number of keys that can be tracked: " + key);
+        }
+        long mask = 1L << key;
+        long word = key >>> WORD_BITS;
+        long previous = words(word).getAndAccumulate((int) (word & (CHUNK_SIZE - 1)), mask, (a, b) -> a | b);
+        if ((previous & mask) == 0) {
+            size.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Marks a key as deleted. Keys that cannot be tracked are ignored, as they never exist.
+     * 
+     * @param key
+     * @return whether the key has been live
+     */
+    public boolean remove(long key) {
+        if (key < 0 || key >= CAPACITY) {
+            return false;
+        }
+        long mask = 1L << key;
+        long word = key >>> WORD_BITS;
+        long previous = words(word).getAndAccumulate((int) (word & (CHUNK_SIZE - 1)), ~mask, (a, b) -> a & b);
+        if ((previous & mask) != 0) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Returns whether a key is live.
+     * 
+     * @param key
+     * @return
+     */
+    public boolean contains(long key) {
+        if (key < 0 || key >= CAPACITY) {
+            return false;
+        }
+        long word = key >>> WORD_BITS;
+        AtomicLongArray chunk = chunks.get((int) (word >>> CHUNK_BITS));
+        return chunk != null && (chunk.get((int) (word & (CHUNK_SIZE - 1))) & (1L << key)) != 0;
+    }
+    
+    /**
+     * Returns the next live key, starting at the given key and wrapping around at n.
+     * Examines all words of the keyspace.
+     * 
+     * @param key the key to start at, from 1..n
+     * @param n the number of keys
+     * @return the key, or -1 if no live key has been found
+     */
+    public long next(long key, long n) {
+        return next(key, n, (n >>> WORD_BITS) + 2);
+    }
+    
+    /**
+     * Returns the next live key, starting at the given key and wrapping around at n.
+     * Examines at most the given number of words.
+     * 
+     * @param key the key to start at, from 1..n
+     * @param n the number of keys
+     * @param limit the maximal number of words to examine
+     * @return the key, or -1 if no live key has been found
+     */
+    public long next(long key, long n, long limit) {
+        long word = key >>> WORD_BITS;
+        long last = n >>> WORD_BITS;
+        long bits = get(word) & (-1L << key);
+        for (long i = 0; i < limit; i++) {
+            if (bits != 0) {
+                long result = (word << WORD_BITS) + Long.numberOfTrailingZeros(bits);
+                if (result >= 1 && result <= n) {
+                    return result;
+                }
+            }
+            word = word >= last ? 0 : word + 1;
+            bits = get(word);
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the number of live keys.
+     * 
+     * @return
+     */
+    public long size() {
+        return size.get();
+    }
+    
+    /**
+     * Returns a word, zero if it has not been allocated.
+     * 
+     * @param word
+     * @return
+     */
+    private long get(long word) {
+        AtomicLongArray chunk = chunks.get((int) (word >>> CHUNK_BITS));
+        return chunk == null ? 0L : chunk.get((int) (word & (CHUNK_SIZE - 1)));
+    }
+    
+    /**
+     * Returns the chunk holding a word, allocating it if needed.
+     * 
+     * @param word
+     * @return
+     */
+    private AtomicLongArray words(long word) {
+        int index = (int) (word >>> CHUNK_BITS);
+        AtomicLongArray chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new AtomicLongArray(CHUNK_SIZE));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+}
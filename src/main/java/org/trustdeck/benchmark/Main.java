@@ -26,13 +26,20 @@ import java.net.URISyntaxException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import org.trustdeck.benchmark.Configuration.ExecutionMode;
+import org.trustdeck.benchmark.KeyDistribution.KeyDistributionType;
 import org.trustdeck.benchmark.connector.Connector;
 import org.trustdeck.benchmark.connector.ConnectorException;
 import org.trustdeck.benchmark.connector.ace.ACEConnector;
+import org.trustdeck.benchmark.connector.ace.ACEStandIn;
+import org.trustdeck.benchmark.connector.ace.ACEStandInSettings;
 import org.trustdeck.benchmark.connector.ace.ClientManager;
+import org.trustdeck.benchmark.connector.ace.HTTPTransport.HTTPTransportType;
 import org.yaml.snakeyaml.Yaml;
 
 /**
@@ -43,11 +50,33 @@ import org.yaml.snakeyaml.Yaml;
 public class Main {
 
     public static void main(String[] args) throws URISyntaxException, IOException, ConnectorException {
+        
+        // Analyze recorded samples
+        if (args.length >= 1 && args[0].equals("analyze")) {
+            Analyzer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        // Run as agent of a coordinator
+        if (args.length == 2 && args[0].equals("agent")) {
+            String[] address = args[1].split(":");
+            new Agent(address[0], Integer.parseInt(address[1])).run();
+            System.exit(0);
+        }
     	
     	// Load configuration from file
         Yaml yaml = new Yaml();
         InputStream inputStream = Main.class.getClassLoader().getResourceAsStream("config.yaml");
         Map<String, Object> yamlConfig = yaml.load(inputStream);
+        
+        // Run the stand-in for ACE only, until the process is terminated
+        if (args.length == 1 && args[0].equals("standin")) {
+            if (startStandIn(yamlConfig) == null) {
+                throw new IllegalStateException("No stand-in configured.");
+            }
+            System.out.println(" - Stand-in started");
+            return;
+        }
 
         // Extract the benchmark configuration from the loaded configuration file
         @SuppressWarnings("unchecked")
@@ -57,8 +86,17 @@ public class Main {
         final int REPORTING_INTERVAL = (int) benchmarkConfig.get("reportingInterval");
         final boolean REPORT_DB_SPACE = (boolean) benchmarkConfig.get("reportDbSpace");
         final int REPORTING_INTERVAL_DB_SPACE = (int) benchmarkConfig.get("reportingIntervalDbSpace");
-        final int NUM_THREADS = (int) benchmarkConfig.get("numThreads");
+        final List<Integer> NUM_THREADS = parseNumThreads(benchmarkConfig.get("numThreads"));
         final int NUMBER_OF_REPETITIONS = (int) benchmarkConfig.get("numberOfRepetitions");
+        final ExecutionMode EXECUTION_MODE = benchmarkConfig.containsKey("executionMode") ? ExecutionMode.valueOf(((String) benchmarkConfig.get("executionMode")).toUpperCase()) : ExecutionMode.PLATFORM;
+        final int MAX_IN_FLIGHT = benchmarkConfig.containsKey("maxInFlight") ? (int) benchmarkConfig.get("maxInFlight") : 1;
+        final int PRELOAD_PARALLELISM = benchmarkConfig.containsKey("preloadParallelism") ? (int) benchmarkConfig.get("preloadParallelism") : 1;
+        final int PRELOAD_IN_FLIGHT = benchmarkConfig.containsKey("preloadInFlight") ? (int) benchmarkConfig.get("preloadInFlight") : 1;
+        final int DRAIN_TIME = benchmarkConfig.containsKey("drainTime") ? (int) benchmarkConfig.get("drainTime") : 10000;
+        final int WARMUP_TIME = benchmarkConfig.containsKey("warmupTime") ? (int) benchmarkConfig.get("warmupTime") : 0;
+        final long WARMUP_OPERATIONS = benchmarkConfig.containsKey("warmupOperations") ? ((Number) benchmarkConfig.get("warmupOperations")).longValue() : 0L;
+        @SuppressWarnings("unchecked")
+        final SampleSettings SAMPLES = benchmarkConfig.containsKey("samples") ? new SampleSettings((Map<String, Object>) benchmarkConfig.get("samples")) : null;
 
         // Extract the scenario configurations from the loaded configuration file
         @SuppressWarnings("unchecked")
@@ -73,33 +111,231 @@ public class Main {
             int updateRate = scenario.containsKey("updateRate") ? (int) scenario.get("updateRate") : 0;
             int deleteRate = scenario.containsKey("deleteRate") ? (int) scenario.get("deleteRate") : 0;
             int pingRate = scenario.containsKey("pingRate") ? (int) scenario.get("pingRate") : 0;
+            int targetRate = scenario.containsKey("targetRate") ? (int) scenario.get("targetRate") : 0;
+            int batchCreateRate = scenario.containsKey("batchCreateRate") ? (int) scenario.get("batchCreateRate") : 0;
+            int batchReadRate = scenario.containsKey("batchReadRate") ? (int) scenario.get("batchReadRate") : 0;
+            
+            // Run the scenario once per listed batch size to compare them
+            List<Integer> batchSizes = new ArrayList<>();
+            if (scenario.get("batchSize") instanceof List) {
+                for (Object batchSize : (List<?>) scenario.get("batchSize")) {
+                    batchSizes.add((int) batchSize);
+                }
+            } else {
+                batchSizes.add(scenario.containsKey("batchSize") ? (int) scenario.get("batchSize") : 100);
+            }
+            boolean batched = batchCreateRate > 0 || batchReadRate > 0;
+            
+            // Distribution of the keys accessed
+            KeyDistributionType keyDistribution = scenario.containsKey("keyDistribution") ? KeyDistributionType.valueOf(((String) scenario.get("keyDistribution")).toUpperCase()) : KeyDistributionType.UNIFORM;
+            double zipfianTheta = scenario.containsKey("zipfianTheta") ? ((Number) scenario.get("zipfianTheta")).doubleValue() : 0.99d;
+            double hotspotFraction = scenario.containsKey("hotspotFraction") ? ((Number) scenario.get("hotspotFraction")).doubleValue() : 0.2d;
+            double hotspotProbability = scenario.containsKey("hotspotProbability") ? ((Number) scenario.get("hotspotProbability")).doubleValue() : 0.8d;
+            double missRatio = scenario.containsKey("missRatio") ? ((Number) scenario.get("missRatio")).doubleValue() : 0d;
+            
+            // Search the maximal sustainable throughput instead of running the scenario once
+            @SuppressWarnings("unchecked")
+            ServiceLevelObjective slo = scenario.containsKey("slo") ? new ServiceLevelObjective((Map<String, Object>) scenario.get("slo")) : null;
+            
+            // Run the scenario once per number of threads to find the saturation point
+            List<Integer> numThreads = scenario.containsKey("numThreads") ? parseNumThreads(scenario.get("numThreads")) : NUM_THREADS;
+            
+            // Run the scenario once per listed transport to compare them
+            @SuppressWarnings("unchecked")
+            List<String> transports = scenario.containsKey("transports") ? (List<String>) scenario.get("transports") : new ArrayList<>();
+            if (transports.isEmpty()) {
+                transports.add(null);
+            }
 
-            for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
-                configs.add(Configuration.builder()
-                        .setCreateRate(createRate)
-                        .setReadRate(readRate)
-                        .setUpdateRate(updateRate)
-                        .setDeleteRate(deleteRate)
-                        .setPingRate(pingRate)
-                        .setInitialDBSize(INITIAL_DB_SIZE)
-                        .setMaxTime(MAX_TIME)
-                        .setName(name + "-" + NUM_THREADS + "-threads")
-                        .setNumThreads(NUM_THREADS)
-                        .setReportingInterval(REPORTING_INTERVAL)
-                        .setReportingIntervalDBSpace(REPORTING_INTERVAL_DB_SPACE)
-                        .setReportDBSpace(REPORT_DB_SPACE)
-                        .build());
+            for (String transport : transports) {
+                for (int batchSize : batchSizes) {
+                    String suffix = (slo != null ? "-slo" : "") + (targetRate > 0 ? "-" + targetRate + "-rps" : "") + (batched ? "-" + batchSize + "-batch" : "") + (keyDistribution != KeyDistributionType.UNIFORM ? "-" + keyDistribution.name().toLowerCase() : "") + (transport != null ? "-" + transport : "");
+                    for (int threads : numThreads) {
+                        for (int i = 0; i < NUMBER_OF_REPETITIONS; i++) {
+                            configs.add(Configuration.builder()
+                                    .setCreateRate(createRate)
+                                    .setReadRate(readRate)
+                                    .setUpdateRate(updateRate)
+                                    .setDeleteRate(deleteRate)
+                                    .setPingRate(pingRate)
+                                    .setInitialDBSize(INITIAL_DB_SIZE)
+                                    .setMaxTime(MAX_TIME)
+                                    .setName(name + "-" + threads + "-threads" + suffix)
+                                    .setSweepName(name + suffix)
+                                    .setNumThreads(threads)
+                                    .setReportingInterval(REPORTING_INTERVAL)
+                                    .setReportingIntervalDBSpace(REPORTING_INTERVAL_DB_SPACE)
+                                    .setReportDBSpace(REPORT_DB_SPACE)
+                                    .setTargetRate(targetRate)
+                                    .setExecutionMode(EXECUTION_MODE)
+                                    .setMaxInFlight(MAX_IN_FLIGHT)
+                                    .setTransport(transport)
+                                    .setPreloadParallelism(PRELOAD_PARALLELISM)
+                                    .setPreloadInFlight(PRELOAD_IN_FLIGHT)
+                                    .setBatchCreateRate(batchCreateRate)
+                                    .setBatchReadRate(batchReadRate)
+                                    .setBatchSize(batchSize)
+                                    .setKeyDistribution(keyDistribution)
+                                    .setZipfianTheta(zipfianTheta)
+                                    .setHotspotFraction(hotspotFraction)
+                                    .setHotspotProbability(hotspotProbability)
+                                    .setMissRatio(missRatio)
+                                    .setDrainTime(DRAIN_TIME)
+                                    .setWarmupTime(WARMUP_TIME)
+                                    .setWarmupOperations(WARMUP_OPERATIONS)
+                                    .setSlo(slo)
+                                    .setSamples(SAMPLES)
+                                    .build());
+                        }
+                    }
+                }
             }
         }
 
-        // Create connector
-        System.out.print("\r - Preparing service: creating authentication and service object");
-        Connector connector = new ACEConnector();
-        System.out.println("\r - Preparing service: creating authentication and service object\t[DONE]");
+        // Serve the requests from the embedded stand-in for ACE, if configured
+        ACEStandIn standIn = startStandIn(yamlConfig);
+        
+        try {
+            // Create connector
+            System.out.print("\r - Preparing service: creating authentication and service object");
+            Connector connector = new ACEConnector();
+            System.out.println("\r - Preparing service: creating authentication and service object\t[DONE]");
+        
+            // Distribute the load over several agents
+            @SuppressWarnings("unchecked")
+            Coordinator coordinator = benchmarkConfig.containsKey("distributed") ? new Coordinator((Map<String, Object>) benchmarkConfig.get("distributed")) : null;
+            if (coordinator != null) {
+                coordinator.connect();
+            }
 
-        // Execute
-        for (Configuration config : configs) {
-            execute(connector, config);
+            // Execute
+            try {
+                Sweep sweep = null;
+                for (Configuration config : configs) {
+                    if (config.getSlo() != null) {
+                        search(connector, config, coordinator);
+                        continue;
+                    }
+                    if (sweep == null || !sweep.getName().equals(config.getSweepName())) {
+                        report(sweep);
+                        sweep = new Sweep(config.getSweepName());
+                    }
+                    sweep.add(execute(connector, config, coordinator));
+                }
+                report(sweep);
+            } finally {
+                connector.close();
+                if (coordinator != null) {
+                    coordinator.close();
+                }
+            }
+        } finally {
+            if (standIn != null) {
+                standIn.stop();
+                System.out.println(" - Stand-in served " + standIn.getRequests() + " requests, " + standIn.getErrors() + " with injected errors");
+            }
+        }
+    }
+    
+    /**
+     * Starts the embedded stand-in for ACE, if it is configured in the ACE section.
+     * 
+     * @param yamlConfig the configuration
+     * @return the stand-in or null, if none is configured
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private static ACEStandIn startStandIn(Map<String, Object> yamlConfig) throws IOException {
+        Map<String, Object> aceConfig = (Map<String, Object>) yamlConfig.get("ace");
+        if (aceConfig == null || !aceConfig.containsKey("standIn")) {
+            return null;
+        }
+        ACEStandInSettings settings = new ACEStandInSettings((Map<String, Object>) aceConfig.get("standIn"));
+        ACEStandIn standIn = new ACEStandIn(settings);
+        standIn.start();
+        System.out.println(" - Preparing service: stand-in for ACE listening on " + settings.getAuthenticationURI());
+        return standIn;
+    }
+    
+    /**
+     * Searches the maximal sustainable throughput of a configuration and writes the search path.
+     * 
+     * @param connector the connector to use
+     * @param config the configuration, including the objective
+     * @param coordinator the coordinator of the agents or null to run locally
+     * @throws IOException
+     * @throws ConnectorException
+     */
+    private static void search(Connector connector, Configuration config, Coordinator coordinator) throws IOException, ConnectorException {
+        
+        // Search
+        SLOSearch search = new SLOSearch(config);
+        int maxRate = search.run(step -> execute(connector, step, coordinator));
+        
+        // Write search path
+        BufferedWriter writer = new BufferedWriter(new FileWriter(new File(config.getName() + "_SLO-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv")));
+        search.report(writer);
+        writer.close();
+        
+        // Some logging
+        System.out.println(" - Maximal sustainable throughput of " + config.getName() + ": " + maxRate + " requests/s");
+    }
+    
+    /**
+     * Parses the numbers of threads to run with. Either a single number, a list of numbers, or a range
+     * given as a map with the keys "from", "to" and either "step" (added) or "factor" (multiplied).
+     * 
+     * @param value
+     * @return the numbers of threads
+     */
+    private static List<Integer> parseNumThreads(Object value) {
+        List<Integer> result = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object threads : (List<?>) value) {
+                result.add((int) threads);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> range = (Map<?, ?>) value;
+            int from = (int) range.get("from");
+            int to = (int) range.get("to");
+            int step = range.containsKey("step") ? (int) range.get("step") : 0;
+            int factor = range.containsKey("factor") ? (int) range.get("factor") : 0;
+            if (from <= 0 || (step <= 0 && factor <= 1)) {
+                throw new IllegalArgumentException("Range of threads requires from > 0 and either step > 0 or factor > 1");
+            }
+            for (int threads = from; threads <= to; threads = step > 0 ? threads + step : threads * factor) {
+                result.add(threads);
+            }
+        } else {
+            result.add((int) value);
+        }
+        return result;
+    }
+    
+    /**
+     * Writes the summary of a sweep and prints its saturation point, if runs with more than one number of threads were executed.
+     * 
+     * @param sweep the sweep or null
+     * @throws IOException
+     */
+    private static void report(Sweep sweep) throws IOException {
+        
+        // Check
+        if (sweep == null || !sweep.isSweep()) {
+            return;
+        }
+        
+        // Write summary
+        BufferedWriter writer = new BufferedWriter(new FileWriter(new File(sweep.getName() + "_SWEEP-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv")));
+        sweep.report(writer);
+        writer.close();
+        
+        // Some logging
+        Sweep.Level knee = sweep.getKnee();
+        if (knee != null) {
+            System.out.println(" - Saturation point of " + sweep.getName() + ": " + knee.getNumThreads() + " threads (" + (int) knee.getThroughput() + " TPS, p99 " + knee.getP99() + " ms)");
+        } else {
+            System.out.println(" - Saturation point of " + sweep.getName() + ": not reached with up to " + sweep.getLevels().get(sweep.getLevels().size() - 1).getNumThreads() + " threads");
         }
     }
     
@@ -108,21 +344,40 @@ public class Main {
      * 
      * @param connector the connector to use
      * @param config the configuration object that should be used to run the benchmark
+     * @param coordinator the coordinator of the agents running the workers or null to run them locally
+     * @return the summary of the run
      * @throws IOException
      * @throws URISyntaxException
      * @throws ConnectorException 
      */
-    private static final void execute(Connector connector,
-                                      Configuration config) throws IOException, ConnectorException {
+    private static final RunResult execute(Connector connector,
+                                      Configuration config,
+                                      Coordinator coordinator) throws IOException, ConnectorException {
+        
+        // Transport of the configuration or the one configured for the service
+        if (config.getTransport() != null) {
+            ClientManager.setTransportType(HTTPTransportType.valueOf(config.getTransport().toUpperCase()));
+        } else {
+            ClientManager.setTransportType(ClientManager.getDefaultTransportType());
+        }
+        
+        // Only the JDK transport is non-blocking, the others occupy a thread per request in flight
+        if (config.getExecutionMode() == ExecutionMode.ASYNC && ClientManager.getTransportType() != HTTPTransportType.JDK) {
+            System.out.println(" - Warning: the " + ClientManager.getTransportType().name().toLowerCase() + 
+                               " transport is blocking, async mode occupies a thread per request in flight. Use the jdk transport instead.");
+        }
                
         // Identifiers
         System.out.print("\r - Preparing benchmark: creating identifiers                      ");
-        Identifiers identifiers = new Identifiers();
+        Identifiers identifiers = new Identifiers(KeyDistribution.create(config), config.getMissRatio());
         System.out.println("\r - Preparing benchmark: creating identifiers\t\t\t\t[DONE]");
 
+        // Schedule, the agents have their own
+        WorkSchedule schedule = new WorkSchedule(coordinator == null ? config.getTargetRate() : 0);
+        
         // Statistics
         System.out.print("\r - Preparing benchmark: creating statistics                      ");
-        Statistics statistics = new Statistics(config);
+        Statistics statistics = new Statistics(config, schedule);
         System.out.println("\r - Preparing benchmark: creating statistics\t\t\t\t[DONE]");
         
         // Provider
@@ -130,67 +385,103 @@ public class Main {
         WorkProvider provider = new WorkProvider(config, identifiers, statistics);
         System.out.println("\r - Preparing benchmark: creating work provider\t\t\t\t[DONE]");
         
+        // Samples, the agents record their own
+        SampleRecorder samples = null;
+        if (config.getSamples() != null && coordinator == null) {
+            samples = new SampleRecorder(config.getSamples(), config.getName() + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")));
+            provider.setSampleRecorder(samples);
+        }
+        
         // Prepare
         System.out.print("\r - Preparing benchmark: purge database and re-initialize            ");
         provider.prepare(connector);
         System.out.println("\r - Preparing benchmark: purge database and re-initialize\t\t[DONE]");
         
+        // Preload
+        if (coordinator == null) {
+            System.out.println("\r - Preparing benchmark: creating " + config.getInitialDBSize() + " initial records (" + 
+                               config.getPreloadParallelism() + " threads, " + config.getPreloadInFlight() + " in flight)");
+            provider.preload();
+        } else {
+            System.out.print("\r - Preparing benchmark: " + coordinator.getAgents() + " agents creating " + config.getInitialDBSize() + " initial records");
+            coordinator.prepare(config);
+            System.out.println("\r - Preparing benchmark: " + coordinator.getAgents() + " agents creating " + config.getInitialDBSize() + " initial records\t[DONE]");
+        }
+        
         // Some logging
         System.out.println("\r - Preparing benchmark: Done");
         
         // Some logging
         System.out.println(" - Executing configuration: " + config.getName());
         
-        // Start workers
-        statistics.start();
-        for (int i = 0; i < config.getNumThreads(); i++) {
-            new Worker(provider).start();
+        // Start workers on an executor of this configuration or on the agents, with a warm-up phase if configured
+        WorkerPool workers = coordinator == null ? new WorkerPool(config, provider, schedule, statistics) : null;
+        Supplier<Map<String, Long>> gauges = coordinator == null ? provider::getGauges : coordinator::getGauges;
+        if (coordinator != null) {
+            coordinator.start(statistics);
+        }
+        boolean warmup = config.getWarmupTime() > 0 || config.getWarmupOperations() > 0;
+        if (warmup) {
+            statistics.startWarmup();
+        } else {
+            statistics.start();
+        }
+        schedule.start();
+        if (workers != null) {
+            workers.start();
         }
         
         // Some logging
-        System.out.println("   - Number of workers launched: " + config.getNumThreads());
+        System.out.println("   - Number of workers launched: " + config.getNumThreads() + " (" + config.getExecutionMode().name().toLowerCase() + " threads" + 
+                           (coordinator != null ? " on " + coordinator.getAgents() + " agents" : "") + ")");
         
         // Files to write to
         BufferedWriter writer = new BufferedWriter(new FileWriter(new File(config.getName() + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv")));
         BufferedWriter dbWriter = config.isReportDBSpace() ? new BufferedWriter(new FileWriter(new File(config.getName() + "_DB_STORAGE-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv"))) : null;
         
-        // Event and logging loop
-        while (true) {
-            
-            // Reporting
-            if (System.currentTimeMillis() - statistics.getLastTime() >= config.getReportingInterval()) {
-                statistics.report(writer);
-                writer.flush();
-                
-                // Print progress
-                System.out.print("\r   - Progress: " + (double)((int)(((double)(System.currentTimeMillis() - statistics.getStartTime())/(double)config.getMaxTime()) * 1000d))/10d + " %");
-            }
-            
-            // Reporting DB storage size
-            if (config.isReportDBSpace() && System.currentTimeMillis() - statistics.getLastTimeDB() >= config.getReportingIntervalDBSpace()) {
-                statistics.reportDBStorage(dbWriter, provider);
-                dbWriter.flush();
-            }
-            
-            // End of experiment
-            if (System.currentTimeMillis() - statistics.getStartTime() >= config.getMaxTime()) {
-            	System.out.println("\r   - Progress: 100 % ");
-                break;
-            }
-            
-            // Sleep
-            try {
-                Thread.sleep(100); // 0.1 second
-            } catch (InterruptedException e) {
-                break;
-            }
-            
-            // Interrupted?
-            if (Thread.interrupted()) {
-                break;
-            }
+        // Report in the background until the end of the experiment
+        Reporter reporter = new Reporter(config, statistics, gauges, provider, coordinator, writer, dbWriter);
+        reporter.start();
+        boolean completed = false;
+        try {
+            reporter.await();
+            completed = true;
+        } catch (InterruptedException e) {
+            // Stop early
+        }
+        reporter.stop();
+        if (completed) {
+            System.out.println("\r   - Progress: 100 % ");
         }
         
+        // Stop workers and wait for the work in flight
+        int inFlight;
+        int abandoned;
+        if (coordinator == null) {
+            inFlight = provider.getInFlight();
+            abandoned = workers.stop();
+        } else {
+            abandoned = coordinator.stop(config.getDrainTime());
+            inFlight = coordinator.getInFlightAtStop();
+        }
+        System.out.println("   - Workers stopped: " + inFlight + " requests in flight at the end, " + 
+                           (abandoned == 0 ? "all completed" : abandoned + " abandoned after " + config.getDrainTime() + " ms"));
+        
+        // Write samples
+        if (samples != null) {
+            samples.close();
+            System.out.println("   - Samples: " + samples.getRecords() + " recorded in " + samples.getDirectory() + 
+                               (samples.getDropped() > 0 ? ", " + samples.getDropped() + " dropped" : ""));
+        }
+        
+        // Include the work completed while draining
+        statistics.report(writer, gauges.get());
+        
+        // Report latency distributions of the whole run
+        BufferedWriter totalsWriter = new BufferedWriter(new FileWriter(new File(config.getName() + "_TOTALS-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv")));
+        statistics.reportTotals(totalsWriter);
+        totalsWriter.close();
+        
         // Close writer
         writer.close();
         if (config.isReportDBSpace()) {
@@ -202,5 +493,6 @@ public class Main {
         
         // Some logging
         System.out.println(" - Done");
+        return statistics.getResult();
     }
 }
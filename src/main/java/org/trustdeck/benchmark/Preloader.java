@@ -0,0 +1,246 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.trustdeck.benchmark.connector.Connector;
+import org.trustdeck.benchmark.connector.ConnectorException;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
+
+/**
+ * Creates the initial records before a benchmark run. Several threads create records
+ * concurrently, each with a bounded number of asynchronous requests in flight. Every
+ * identifier handed out by {@link Identifiers} during the preload is created, requests
+ * that failed with a timeout, a connection or a server error are retried after a backoff,
+ * and the preload is aborted if a record cannot be created, so that the preloaded
+ * identifiers always match the range used by the workers afterwards. As creates are not
+ * idempotent, a conflict in response to a retry means that an earlier attempt succeeded.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Preloader {
+    
+    /** Number of attempts to create a single record. */
+    private static final int MAX_ATTEMPTS = 5;
+    
+    /** Backoff before a retry in milliseconds, multiplied by the number of failed attempts. */
+    private static final int RETRY_BACKOFF = 100;
+    
+    /** Status code of a conflict, returned when a record exists already. */
+    private static final int STATUS_CONFLICT = 409;
+    
+    /** Interval of progress output in milliseconds. */
+    private static final int PROGRESS_INTERVAL = 1000;
+    
+    /** Width of the progress bar in characters. */
+    private static final int PROGRESS_WIDTH = 40;
+    
+    /** The connector. */
+    private final Connector connector;
+    
+    /** The identifiers. */
+    private final Identifiers identifiers;
+    
+    /** Number of records to create. */
+    private final long size;
+    
+    /** Number of threads. */
+    private final int parallelism;
+    
+    /** Maximal number of requests in flight per thread. */
+    private final int inFlight;
+    
+    /** Number of identifiers handed out. */
+    private final AtomicLong claimed = new AtomicLong();
+    
+    /** Number of records created. */
+    private final AtomicLong created = new AtomicLong();
+    
+    /** Number of retried requests. */
+    private final AtomicLong retries = new AtomicLong();
+    
+    /** First failure that could not be recovered. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param connector
+     * @param identifiers
+     * @param config
+     */
+    public Preloader(Connector connector, Identifiers identifiers, Configuration config) {
+        this.connector = connector;
+        this.identifiers = identifiers;
+        this.size = config.getInitialDBSize();
+        this.parallelism = config.getPreloadParallelism();
+        this.inFlight = config.getPreloadInFlight();
+    }
+    
+    /**
+     * Creates the records and prints the progress. Blocks until all records have been created.
+     * 
+     * @throws ConnectorException if a record could not be created
+     */
+    public void run() throws ConnectorException {
+        
+        // Start threads
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            Thread thread = new Thread(this::load, "preload-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        
+        // Report progress until done
+        try {
+            for (Thread thread : threads) {
+                while (thread.isAlive()) {
+                    thread.join(PROGRESS_INTERVAL);
+                    printProgress(start);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException(e);
+        }
+        printProgress(start);
+        System.out.println();
+        
+        // Check result
+        if (failure.get() != null) {
+            throw new ConnectorException(failure.get());
+        }
+    }
+    
+    /**
+     * Creates records until the desired number has been handed out or a failure occurred.
+     */
+    private void load() {
+        Semaphore permits = new Semaphore(inFlight);
+        while (failure.get() == null) {
+            permits.acquireUninterruptibly();
+            
+            // Claim before creating the identifier, so that exactly the desired number is handed out
+            if (claimed.incrementAndGet() > size) {
+                permits.release();
+                break;
+            }
+            final long key = identifiers.create();
+            create(identifiers.format(key), 1).whenComplete((result, error) -> {
+                if (error != null) {
+                    failure.compareAndSet(null, error);
+                } else {
+                    identifiers.created(key);
+                    created.incrementAndGet();
+                }
+                permits.release();
+            });
+        }
+        
+        // Wait for the requests in flight
+        permits.acquireUninterruptibly(inFlight);
+    }
+    
+    /**
+     * Creates a record, retrying failed requests.
+     * 
+     * @param id
+     * @param attempt
+     * @return completes when the record has been created
+     */
+    private CompletionStage<Void> create(String id, int attempt) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        connector.createPseudonymAsync(id).whenComplete((ignored, error) -> {
+            ConnectorException cause = error != null ? unwrap(error) : null;
+            if (error == null || (attempt > 1 && cause.getStatusCode() == STATUS_CONFLICT)) {
+                result.complete(null);
+            } else if (attempt < MAX_ATTEMPTS && isTransient(cause)) {
+                retries.incrementAndGet();
+                CompletableFuture.runAsync(() -> {
+                    create(id, attempt + 1).whenComplete((ignored2, error2) -> {
+                        if (error2 == null) {
+                            result.complete(null);
+                        } else {
+                            result.completeExceptionally(error2);
+                        }
+                    });
+                }, CompletableFuture.delayedExecutor((long) RETRY_BACKOFF * attempt, TimeUnit.MILLISECONDS));
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Returns the connector exception causing a failure.
+     * 
+     * @param error
+     * @return the connector exception
+     */
+    private static ConnectorException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof ConnectorException ? (ConnectorException) cause : new ConnectorException(cause);
+    }
+    
+    /**
+     * Returns whether a failed create may succeed when retried.
+     * 
+     * @param error
+     * @return whether to retry
+     */
+    private static boolean isTransient(ConnectorException error) {
+        return error.getType() == ErrorType.TIMEOUT || error.getType() == ErrorType.CONNECTION || error.getType() == ErrorType.SERVER_ERROR;
+    }
+    
+    /**
+     * Prints a progress bar with the preload throughput.
+     * 
+     * @param start start time in nanoseconds
+     */
+    private void printProgress(long start) {
+        long done = created.get();
+        double fraction = size == 0 ? 1d : (double) done / (double) size;
+        int filled = (int) (fraction * PROGRESS_WIDTH);
+        double seconds = (double) (System.nanoTime() - start) / 1000000000d;
+        long throughput = seconds > 0 ? (long) (done / seconds) : 0;
+        
+        StringBuilder builder = new StringBuilder();
+        builder.append("\r   - Preload: [");
+        for (int i = 0; i < PROGRESS_WIDTH; i++) {
+            builder.append(i < filled ? '#' : ' ');
+        }
+        builder.append("] ").append((double) ((int) (fraction * 1000d)) / 10d).append(" % (");
+        builder.append(done).append("/").append(size).append(" records, ");
+        builder.append(throughput).append(" records/s, ");
+        builder.append(retries.get()).append(" retries)   ");
+        System.out.print(builder.toString());
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.trustdeck.benchmark.connector.ConnectorException;
+
+/**
+ * Reports the statistics of a run in the background. Intervals are scheduled at a fixed rate based on
+ * {@link System#nanoTime()}, so that their boundaries do not drift, and the end of the warm-up and of
+ * the run are scheduled at their exact times. The storage used by the database is polled on a thread
+ * of its own, so that slow requests do not delay the intervals. Output is handed to a writer thread
+ * in one batch per interval.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Reporter {
+    
+    /** Time between checks of the number of operations at the end of the warm-up, in nanoseconds. */
+    private static final long WARMUP_POLL = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    /**
+     * A task of the reporter.
+     */
+    private static interface Task {
+        
+        /**
+         * Runs the task.
+         * 
+         * @throws IOException
+         * @throws ConnectorException
+         */
+        void run() throws IOException, ConnectorException;
+    }
+    
+    /**
+     * Collects output and writes it on the writer thread when flushed. Thread safe.
+     */
+    private class BatchWriter extends Writer {
+        
+        /** The writer written to on the writer thread. */
+        private final Writer writer;
+        
+        /** Output collected since the last flush. */
+        private final StringBuilder batch = new StringBuilder();
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param writer
+         */
+        private BatchWriter(Writer writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public synchronized void write(char[] buffer, int offset, int length) {
+            batch.append(buffer, offset, length);
+        }
+        
+        @Override
+        public synchronized void write(String string) {
+            batch.append(string);
+        }
+        
+        @Override
+        public synchronized void flush() {
+            if (batch.length() == 0) {
+                return;
+            }
+            final String output = batch.toString();
+            batch.setLength(0);
+            output(() -> {
+                writer.write(output);
+                writer.flush();
+            });
+        }
+        
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+    
+    /** The configuration. */
+    private final Configuration config;
+    
+    /** Statistics. */
+    private final Statistics statistics;
+    
+    /** Live gauges of the drivers. */
+    private final Supplier<Map<String, Long>> gauges;
+    
+    /** Work provider, used to query the storage of the database, null if it is not reported. */
+    private final WorkProvider provider;
+    
+    /** Coordinator of the agents, null if the workers run locally. */
+    private final Coordinator coordinator;
+    
+    /** Writer of the statistics. */
+    private final BatchWriter writer;
+    
+    /** Writer of the storage of the database, null if it is not reported. */
+    private final BatchWriter dbWriter;
+    
+    /** Thread reporting the intervals and ending the warm-up and the run. */
+    private final ScheduledThreadPoolExecutor scheduler = createScheduler("reporter");
+    
+    /** Thread reporting the storage of the database. */
+    private final ScheduledThreadPoolExecutor storage = createScheduler("storage-reporter");
+    
+    /** Thread writing the output. */
+    private final ExecutorService output = Executors.newSingleThreadExecutor(createThreadFactory("report-writer"));
+    
+    /** Released at the end of the run or on failure. */
+    private final CountDownLatch end = new CountDownLatch(1);
+    
+    /** Pending report of the next interval. Only accessed by the scheduler. */
+    private ScheduledFuture<?> pending;
+    
+    /** End of the next interval in nanoseconds. Only accessed by the scheduler. */
+    private long next;
+    
+    /** First failure of a task. */
+    private volatile Exception failure;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param config
+     * @param statistics
+     * @param gauges the live gauges of the drivers
+     * @param provider the work provider, used to query the storage of the database if it is reported
+     * @param coordinator the coordinator of the agents, null if the workers run locally
+     * @param writer the writer of the statistics
+     * @param dbWriter the writer of the storage of the database, null if it is not reported
+     */
+    public Reporter(Configuration config, Statistics statistics, Supplier<Map<String, Long>> gauges, WorkProvider provider, Coordinator coordinator, Writer writer, Writer dbWriter) {
+        this.config = config;
+        this.statistics = statistics;
+        this.gauges = gauges;
+        this.provider = provider;
+        this.coordinator = coordinator;
+        this.writer = new BatchWriter(writer);
+        this.dbWriter = dbWriter != null ? new BatchWriter(dbWriter) : null;
+    }
+    
+    /**
+     * Starts reporting. Must be called after the statistics have been started.
+     */
+    public void start() {
+        
+        // Intervals and the end of the current phase
+        scheduler.execute(guard(() -> {
+            startIntervals();
+            if (statistics.isWarmup()) {
+                schedule(this::endWarmup, statistics.getStartTime() + TimeUnit.MILLISECONDS.toNanos(config.getWarmupTime()));
+            } else {
+                scheduleEnd();
+            }
+        }));
+        
+        // Storage of the database, independently
+        if (dbWriter != null) {
+            storage.scheduleAtFixedRate(guard(() -> {
+                statistics.reportDBStorage(dbWriter, provider);
+                dbWriter.flush();
+            }), 0L, config.getReportingIntervalDBSpace(), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Waits for the end of the run.
+     * 
+     * @throws InterruptedException
+     */
+    public void await() throws InterruptedException {
+        end.await();
+    }
+    
+    /**
+     * Stops reporting and waits until all output has been written. Afterwards, the statistics and the
+     * writers may be used by the calling thread.
+     * 
+     * @throws IOException
+     * @throws ConnectorException
+     */
+    public void stop() throws IOException, ConnectorException {
+        
+        // Stop scheduling, a running task is completed
+        scheduler.shutdown();
+        storage.shutdown();
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            storage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            output.shutdown();
+            output.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Rethrow failures
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof ConnectorException) {
+            throw (ConnectorException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+    
+    /**
+     * Reports an interval and schedules the next one.
+     * 
+     * @throws IOException
+     */
+    private void reportInterval() throws IOException {
+        
+        // Report
+        statistics.report(writer, gauges.get());
+        writer.flush();
+        
+        // Print progress
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - statistics.getStartTime());
+        if (statistics.isWarmup()) {
+            System.out.print("\r   - Warm-up: " + statistics.getOperations() + " operations in " + elapsed + " ms");
+        } else {
+            System.out.print("\r   - Progress: " + (double)((int)(((double)elapsed/(double)config.getMaxTime()) * 1000d))/10d + " %");
+        }
+        
+        // Next interval, boundaries missed while reporting are skipped
+        long interval = TimeUnit.MILLISECONDS.toNanos(config.getReportingInterval());
+        long now = System.nanoTime();
+        do {
+            next += interval;
+        } while (next - now <= 0L);
+        pending = schedule(this::reportInterval, next);
+    }
+    
+    /**
+     * Ends the warm-up when enough operations have been performed, and starts the measurement.
+     * 
+     * @throws IOException
+     */
+    private void endWarmup() throws IOException {
+        
+        // Wait for the operations
+        if (statistics.getOperations() < config.getWarmupOperations()) {
+            schedule(this::endWarmup, System.nanoTime() + WARMUP_POLL);
+            return;
+        }
+        
+        // Report the rest of the warm-up
+        statistics.report(writer, gauges.get());
+        writer.flush();
+        long operations = statistics.getOperations();
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - statistics.getStartTime());
+        
+        // Start the measurement, with intervals relative to its start
+        statistics.endWarmup();
+        if (coordinator != null) {
+            coordinator.endWarmup();
+        }
+        System.out.println("\r   - Warm-up: " + operations + " operations in " + duration + " ms\t\t\t[DONE]");
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        startIntervals();
+        scheduleEnd();
+    }
+    
+    /**
+     * Schedules the first interval, relative to the start of the statistics.
+     */
+    private void startIntervals() {
+        next = statistics.getStartTime() + TimeUnit.MILLISECONDS.toNanos(config.getReportingInterval());
+        pending = schedule(this::reportInterval, next);
+    }
+    
+    /**
+     * Schedules the end of the run, relative to the start of the measurement.
+     */
+    private void scheduleEnd() {
+        schedule(end::countDown, statistics.getStartTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxTime()));
+    }
+    
+    /**
+     * Schedules a task on the scheduler. Tasks scheduled after the reporter has been stopped are discarded.
+     * 
+     * @param task
+     * @param time in nanoseconds, see {@link System#nanoTime()}
+     * @return the future, null if the task has been discarded
+     */
+    private ScheduledFuture<?> schedule(Task task, long time) {
+        try {
+            return scheduler.schedule(guard(task), time - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Writes output on the writer thread.
+     * 
+     * @param task
+     */
+    private void output(Task task) {
+        output.execute(guard(task));
+    }
+    
+    /**
+     * Wraps a task, so that its failure is recorded and ends the run.
+     * 
+     * @param task
+     * @return the runnable
+     */
+    private Runnable guard(Task task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (IOException | ConnectorException | RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                end.countDown();
+            }
+        };
+    }
+    
+    /**
+     * Creates a scheduler with a single thread, which discards its pending tasks on shutdown.
+     * 
+     * @param name the name of the thread
+     * @return the scheduler
+     */
+    private static ScheduledThreadPoolExecutor createScheduler(String name) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, createThreadFactory(name));
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+        return scheduler;
+    }
+    
+    /**
+     * Creates a factory for a daemon thread.
+     * 
+     * @param name the name of the thread
+     * @return the thread factory
+     */
+    private static ThreadFactory createThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import lombok.Getter;
+
+/**
+ * Summary of the execution of a configuration.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class RunResult {
+    
+    /** Name of the configuration. */
+    private final String name;
+    
+    /** Name of the sweep the configuration belongs to. */
+    private final String sweepName;
+    
+    /** Number of worker threads. */
+    private final int numThreads;
+    
+    /** Duration of the run in seconds. */
+    private final double duration;
+    
+    /** Number of successful operations. */
+    private final long operations;
+    
+    /** Number of failed operations. */
+    private final long errors;
+    
+    /** Median latency of successful operations in milliseconds. */
+    private final double p50;
+    
+    /** 99th percentile of the latency of successful operations in milliseconds. */
+    private final double p99;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param name
+     * @param sweepName
+     * @param numThreads
+     * @param duration in seconds
+     * @param operations
+     * @param errors
+     * @param p50 in milliseconds
+     * @param p99 in milliseconds
+     */
+    public RunResult(String name, String sweepName, int numThreads, double duration, long operations, long errors, double p50, double p99) {
+        this.name = name;
+        this.sweepName = sweepName;
+        this.numThreads = numThreads;
+        this.duration = duration;
+        this.operations = operations;
+        this.errors = errors;
+        this.p50 = p50;
+        this.p99 = p99;
+    }
+    
+    /**
+     * Returns the number of successful operations per second.
+     * 
+     * @return
+     */
+    public double getThroughput() {
+        return duration == 0d ? 0d : (double) operations / duration;
+    }
+    
+    /**
+     * Returns the fraction of operations that failed.
+     * 
+     * @return
+     */
+    public double getErrorRate() {
+        return operations + errors == 0 ? 0d : (double) errors / (double) (operations + errors);
+    }
+}
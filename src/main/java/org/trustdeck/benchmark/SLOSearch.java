@@ -0,0 +1,221 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.trustdeck.benchmark.connector.ConnectorException;
+
+/**
+ * Searches the highest target rate at which a configuration meets its service level objective. The
+ * target rate is first increased step by step until the objective is violated and then refined by a
+ * binary search between the last rate that met the objective and the first one that did not. Each step
+ * is a complete open-loop run of the configuration with its own warm-up and measurement window.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class SLOSearch {
+    
+    /**
+     * Executes a configuration.
+     */
+    public static interface Runner {
+        
+        /**
+         * Executes the configuration.
+         * 
+         * @param config
+         * @return the summary of the run
+         * @throws IOException
+         * @throws ConnectorException
+         */
+        RunResult run(Configuration config) throws IOException, ConnectorException;
+    }
+    
+    /**
+     * A step of the search.
+     */
+    private static class Step {
+        
+        /** Phase of the search. */
+        private final String phase;
+        
+        /** Target rate in requests per second. */
+        private final int targetRate;
+        
+        /** Result of the run. */
+        private final RunResult result;
+        
+        /** Whether the objective was met. */
+        private final boolean met;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param phase
+         * @param targetRate
+         * @param result
+         * @param met
+         */
+        private Step(String phase, int targetRate, RunResult result, boolean met) {
+            this.phase = phase;
+            this.targetRate = targetRate;
+            this.result = result;
+            this.met = met;
+        }
+    }
+    
+    /** The configuration. */
+    private final Configuration config;
+    
+    /** The objective. */
+    private final ServiceLevelObjective slo;
+    
+    /** Steps performed. */
+    private final List<Step> steps = new ArrayList<>();
+    
+    /** Highest target rate that met the objective, zero if none did. */
+    private int maxRate = 0;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param config the configuration, including the objective
+     */
+    public SLOSearch(Configuration config) {
+        this.config = config;
+        this.slo = config.getSlo();
+    }
+    
+    /**
+     * Performs the search.
+     * 
+     * @param runner
+     * @return the highest target rate that met the objective, zero if none did
+     * @throws IOException
+     * @throws ConnectorException
+     */
+    public int run(Runner runner) throws IOException, ConnectorException {
+        
+        // Step up until the objective is violated
+        int rate = slo.getStartRate();
+        int violated = 0;
+        while (true) {
+            if (step(runner, "step-up", rate)) {
+                maxRate = rate;
+                if (rate >= slo.getMaxRate()) {
+                    return maxRate;
+                }
+                rate = (int) Math.min(slo.getMaxRate(), Math.max(rate + 1, Math.ceil(rate * slo.getStepFactor())));
+            } else {
+                violated = rate;
+                break;
+            }
+        }
+        
+        // Binary search between the highest rate that met the objective and the lowest that did not
+        while (violated - maxRate > Math.max(1d, slo.getResolution() * violated)) {
+            rate = maxRate + (violated - maxRate) / 2;
+            if (step(runner, "binary-search", rate)) {
+                maxRate = rate;
+            } else {
+                violated = rate;
+            }
+        }
+        return maxRate;
+    }
+    
+    /**
+     * Returns the highest target rate that met the objective, zero if none did.
+     * 
+     * @return
+     */
+    public int getMaxRate() {
+        return maxRate;
+    }
+    
+    /**
+     * Writes the search path and its result. NOT thread safe.
+     * 
+     * @param writer
+     * @throws IOException
+     */
+    public void report(Writer writer) throws IOException {
+        
+        // Print header
+        StringBuilder builder = new StringBuilder();
+        builder.append("Name").append(";");
+        builder.append("Step").append(";");
+        builder.append("Phase").append(";");
+        builder.append("Target rate").append(";");
+        builder.append("TPS").append(";");
+        builder.append("p99 [ms]").append(";");
+        builder.append("Error rate").append(";");
+        builder.append("SLO met").append("\n");
+        
+        // Print one line per step and the result
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            builder.append(config.getName()).append(";");
+            builder.append(i + 1).append(";");
+            builder.append(step.phase).append(";");
+            builder.append(step.targetRate).append(";");
+            builder.append((int) step.result.getThroughput()).append(";");
+            builder.append(format(step.result.getP99())).append(";");
+            builder.append(format(step.result.getErrorRate())).append(";");
+            builder.append(step.met).append("\n");
+        }
+        builder.append(config.getName()).append(";");
+        builder.append(";");
+        builder.append("result").append(";");
+        builder.append(maxRate).append(";;;;").append("\n");
+        writer.write(builder.toString());
+    }
+    
+    /**
+     * Runs a step.
+     * 
+     * @param runner
+     * @param phase
+     * @param rate
+     * @return whether the objective was met
+     * @throws IOException
+     * @throws ConnectorException
+     */
+    private boolean step(Runner runner, String phase, int rate) throws IOException, ConnectorException {
+        RunResult result = runner.run(config.forStep(rate, slo.getStepTime()));
+        boolean met = slo.isMet(result, rate);
+        steps.add(new Step(phase, rate, result, met));
+        System.out.println(" - SLO search of " + config.getName() + ": " + rate + " requests/s " + (met ? "met" : "violated") + 
+                           " the objective (" + (int) result.getThroughput() + " TPS, p99 " + result.getP99() + " ms, error rate " + format(result.getErrorRate()) + ")");
+        return met;
+    }
+    
+    /**
+     * Formats a number for the CSV output.
+     * 
+     * @param value
+     * @return
+     */
+    private static String format(double value) {
+        return String.valueOf((double) Math.round(value * 1000d) / 1000d).replace('.', ',');
+    }
+}
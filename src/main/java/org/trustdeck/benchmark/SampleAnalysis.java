@@ -0,0 +1,801 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Offline analysis of the samples written by {@link SampleRecorder}. Samples are aggregated per window
+ * of time and per group, e.g. per type of operation, and reported with their latency distributions.<br>
+ * <br>
+ * The files are mapped into memory and scanned in parallel on a fork/join pool in two passes. The first
+ * pass indexes the range of times of each block of records. The second pass splits the range of times
+ * analyzed into slabs of about {@link #SLAB_SAMPLES} samples, which are aggregated independently and
+ * only scan the blocks overlapping them. Slabs consist of whole windows, so that each slab reduces its
+ * aggregates to rows before the next slabs are processed, and memory does not grow with the length of
+ * the run. While scanning, latencies are buffered and recorded into histograms in bulk per aggregate.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class SampleAnalysis {
+    
+    /** Highest latency that can be tracked, in microseconds. */
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(24);
+    
+    /** Number of significant digits of the histograms. */
+    private static final int SIGNIFICANT_DIGITS = 3;
+    
+    /** Percentiles reported. */
+    private static final double[] PERCENTILES = new double[] {50d, 90d, 99d, 99.9d};
+    
+    /** Number of records per block of the index. */
+    private static final int BLOCK_SIZE = 1 << 16;
+    
+    /** Number of blocks indexed by a single task. */
+    private static final int BLOCKS_PER_TASK = 32;
+    
+    /** Number of samples aggregated by a single task, if they are distributed evenly over time. */
+    private static final long SLAB_SAMPLES = 1L << 21;
+    
+    /** Number of groups, keys combine the window and the group. */
+    private static final long GROUPS = 1L << 20;
+    
+    /** Number of aggregates cached per task. */
+    private static final int CACHE_SIZE = 64;
+    
+    /** Format of the start of windows. */
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    
+    /**
+     * Property by which samples are grouped.
+     */
+    public static enum Grouping {
+        NONE,
+        OPERATION,
+        WORKER,
+        STATUS
+    }
+    
+    /**
+     * Time of a sample by which it is assigned to windows and filtered.
+     */
+    public static enum TimeReference {
+        /** The intended start time, from which latencies are measured. */
+        INTENDED,
+        /** The time of completion. */
+        COMPLETED
+    }
+    
+    /**
+     * Samples of a group in a window.
+     */
+    private static class Aggregate {
+        
+        /** Latencies in microseconds while scanning, recorded in bulk when the scan of a slab is complete. */
+        private long[] buffer = new long[16];
+        
+        /** Number of latencies buffered. */
+        private int size = 0;
+        
+        /** Latencies in microseconds, once the scan of a slab is complete. Packed, as they are kept until the end. */
+        private Histogram latencies;
+        
+        /** Number of operations that did not find the pseudonym targeted. */
+        private long misses = 0;
+        
+        /** Number of failed operations. */
+        private long errors = 0;
+        
+        /** Time of the first sample in nanoseconds since the epoch. */
+        private long first = Long.MAX_VALUE;
+        
+        /** Time of the last sample in nanoseconds since the epoch. */
+        private long last = Long.MIN_VALUE;
+        
+        /**
+         * Adds a sample.
+         * 
+         * @param time in nanoseconds since the epoch
+         * @param latency in nanoseconds
+         * @param status
+         */
+        private void add(long time, long latency, int status) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size << 1);
+            }
+            buffer[size++] = Math.max(1L, Math.min(HIGHEST_TRACKABLE_LATENCY, latency / 1000L));
+            if (status == SampleRecorder.STATUS_MISS) {
+                misses++;
+            } else if (status != SampleRecorder.STATUS_OK) {
+                errors++;
+            }
+            first = Math.min(first, time);
+            last = Math.max(last, time);
+        }
+        
+        /**
+         * Records the buffered latencies into a histogram and releases the buffer.
+         * 
+         * @param histogram the histogram, which is reset first
+         * @return the histogram
+         */
+        private Histogram record(Histogram histogram) {
+            histogram.reset();
+            for (int i = 0; i < size; i++) {
+                histogram.recordValue(buffer[i]);
+            }
+            buffer = null;
+            size = 0;
+            return histogram;
+        }
+        
+        /**
+         * Adds another aggregate, both must have been recorded.
+         * 
+         * @param other
+         */
+        private void add(Aggregate other) {
+            latencies.add(other.latencies);
+            misses += other.misses;
+            errors += other.errors;
+            first = Math.min(first, other.first);
+            last = Math.max(last, other.last);
+        }
+    }
+    
+    /**
+     * Result for a group in a window. Latencies are given in milliseconds.
+     */
+    private static class Row {
+        
+        /** Start of the window in nanoseconds since the epoch. */
+        private final long start;
+        
+        /** Name of the group. */
+        private final String group;
+        
+        /** Number of samples. */
+        private final long count;
+        
+        /** Samples per second. */
+        private final double throughput;
+        
+        /** Number of operations that did not find the pseudonym targeted. */
+        private final long misses;
+        
+        /** Number of failed operations. */
+        private final long errors;
+        
+        /** Mean latency. */
+        private final double mean;
+        
+        /** Latencies at the reported percentiles. */
+        private final double[] percentiles;
+        
+        /** Maximal latency. */
+        private final double max;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param start
+         * @param duration of the window in nanoseconds
+         * @param group
+         * @param aggregate
+         * @param latencies of the aggregate
+         */
+        private Row(long start, long duration, String group, Aggregate aggregate, Histogram latencies) {
+            this.start = start;
+            this.group = group;
+            this.count = latencies.getTotalCount();
+            this.throughput = duration > 0 ? (double) count * 1000000000d / (double) duration : 0d;
+            this.misses = aggregate.misses;
+            this.errors = aggregate.errors;
+            this.mean = latencies.getMean() / 1000d;
+            this.percentiles = new double[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                this.percentiles[i] = latencies.getValueAtPercentile(PERCENTILES[i]) / 1000d;
+            }
+            this.max = latencies.getMaxValue() / 1000d;
+        }
+    }
+    
+    /**
+     * Ranges of times of the blocks of records of a file.
+     */
+    private static class Index {
+        
+        /** The file. */
+        private final SampleFile file;
+        
+        /** Earliest time per block, in nanoseconds since the epoch. */
+        private final long[] min;
+        
+        /** Latest time per block, in nanoseconds since the epoch. */
+        private final long[] max;
+        
+        /** Number of records per block. */
+        private final int[] records;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param file
+         */
+        private Index(SampleFile file) {
+            int blocks = (file.getCapacity() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            this.file = file;
+            this.min = new long[blocks];
+            this.max = new long[blocks];
+            this.records = new int[blocks];
+        }
+        
+        /**
+         * Returns the first slot of a block.
+         * 
+         * @param block
+         * @return the slot
+         */
+        private int getFrom(int block) {
+            return block * BLOCK_SIZE;
+        }
+        
+        /**
+         * Returns the slot after the last slot of a block.
+         * 
+         * @param block
+         * @return the slot
+         */
+        private int getTo(int block) {
+            return (int) Math.min((long) (block + 1) * BLOCK_SIZE, file.getCapacity());
+        }
+    }
+    
+    /**
+     * Indexes a range of the blocks of a file.
+     */
+    private class Indexing extends RecursiveAction {
+        
+        /** SVUID */
+        private static final long serialVersionUID = -6215043452217283160L;
+        
+        /** The index. */
+        private final Index index;
+        
+        /** First block, inclusive. */
+        private final int from;
+        
+        /** Last block, exclusive. */
+        private final int to;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param index
+         * @param from
+         * @param to
+         */
+        private Indexing(Index index, int from, int to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            
+            // Split
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Indexing(index, from, middle), new Indexing(index, middle, to));
+                return;
+            }
+            
+            // Index
+            SampleFile file = index.file;
+            for (int block = from; block < to; block++) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                int records = 0;
+                for (int slot = index.getFrom(block); slot < index.getTo(block); slot++) {
+                    if (file.getType(slot) != 0) {
+                        long time = getTime(file, slot);
+                        min = Math.min(min, time);
+                        max = Math.max(max, time);
+                        records++;
+                    }
+                }
+                index.min[block] = min;
+                index.max[block] = max;
+                index.records[block] = records;
+            }
+        }
+    }
+    
+    /**
+     * Aggregates the samples in a range of time. If windows are used, the range consists of whole windows,
+     * and the aggregates are reduced to rows right away.
+     */
+    private class Slab extends RecursiveTask<Map<Long, Aggregate>> {
+        
+        /** SVUID */
+        private static final long serialVersionUID = 3302877618547240415L;
+        
+        /** Start of the range in nanoseconds since the epoch, inclusive. */
+        private final long start;
+        
+        /** End of the range in nanoseconds since the epoch, exclusive. */
+        private final long end;
+        
+        /** Rows of the range, if windows are used. */
+        private List<Row> rows = Collections.emptyList();
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param start
+         * @param end
+         */
+        private Slab(long start, long end) {
+            this.start = Math.max(start, begin);
+            this.end = Math.min(end, SampleAnalysis.this.end);
+        }
+        
+        @Override
+        protected Map<Long, Aggregate> compute() {
+            
+            // Scan the blocks overlapping the range, consecutive samples mostly fall into the same few aggregates
+            Map<Long, Aggregate> result = new HashMap<>();
+            Aggregate[] cache = new Aggregate[CACHE_SIZE];
+            long[] cached = new long[CACHE_SIZE];
+            for (Index index : indexes) {
+                SampleFile file = index.file;
+                for (int block = 0; block < index.min.length; block++) {
+                    if (index.records[block] == 0 || index.max[block] < start || index.min[block] >= end) {
+                        continue;
+                    }
+                    for (int slot = index.getFrom(block); slot < index.getTo(block); slot++) {
+                        
+                        // Filter
+                        int type = file.getType(slot);
+                        if (type == 0 || (!warmup && file.isWarmup(slot))) {
+                            continue;
+                        }
+                        long time = getTime(file, slot);
+                        if (time < start || time >= end) {
+                            continue;
+                        }
+                        
+                        // Find aggregate
+                        int status = file.getStatus(slot);
+                        long key = getWindow(time) * GROUPS + getGroup(type, status, file.getWorker(slot));
+                        int position = (int) (key & (CACHE_SIZE - 1));
+                        Aggregate aggregate = cache[position];
+                        if (aggregate == null || cached[position] != key) {
+                            aggregate = result.computeIfAbsent(key, k -> new Aggregate());
+                            cache[position] = aggregate;
+                            cached[position] = key;
+                        }
+                        
+                        // Add
+                        aggregate.add(time, file.getLatency(slot), status);
+                    }
+                }
+            }
+            
+            // Reduce to rows, or to packed histograms to be merged with the other slabs
+            Histogram histogram = new Histogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+            if (window > 0) {
+                rows = getRows(result, histogram);
+                return Collections.emptyMap();
+            }
+            for (Aggregate aggregate : result.values()) {
+                aggregate.latencies = new PackedHistogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+                aggregate.latencies.add(aggregate.record(histogram));
+            }
+            return result;
+        }
+    }
+    
+    /** Width of the windows in nanoseconds, zero for a single window. */
+    private final long window;
+    
+    /** Property by which samples are grouped. */
+    private final Grouping grouping;
+    
+    /** Samples before this time in nanoseconds since the epoch are ignored. */
+    private final long begin;
+    
+    /** Samples at or after this time in nanoseconds since the epoch are ignored. */
+    private final long end;
+    
+    /** Whether samples of the warm-up are included. */
+    private final boolean warmup;
+    
+    /** Time of samples by which they are assigned to windows and filtered. */
+    private final TimeReference reference;
+    
+    /** Start of the first window in nanoseconds since the epoch. */
+    private long origin;
+    
+    /** Indexes of the files analyzed. */
+    private List<Index> indexes = new ArrayList<>();
+    
+    /** Rows of the result. */
+    private List<Row> rows = new ArrayList<>();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param window the width of the windows in milliseconds, zero for a single window
+     * @param grouping the property by which samples are grouped
+     * @param begin samples before this time in milliseconds since the epoch are ignored
+     * @param end samples at or after this time in milliseconds since the epoch are ignored
+     * @param warmup whether samples of the warm-up are included
+     * @param reference the time of samples by which they are assigned to windows and filtered
+     */
+    public SampleAnalysis(int window, Grouping grouping, long begin, long end, boolean warmup, TimeReference reference) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Width of the windows must not be negative.");
+        }
+        if (begin >= end) {
+            throw new IllegalArgumentException("Start of the range must be before its end.");
+        }
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+        this.grouping = grouping;
+        this.begin = begin == Long.MIN_VALUE ? Long.MIN_VALUE : TimeUnit.MILLISECONDS.toNanos(begin);
+        this.end = end == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(end);
+        this.warmup = warmup;
+        this.reference = reference;
+    }
+    
+    /**
+     * Analyzes the given files.
+     * 
+     * @param files the files
+     * @param parallelism the number of threads scanning the files
+     * @throws IOException
+     */
+    public void run(List<File> files, int parallelism) throws IOException {
+        
+        // Map
+        long start = Long.MAX_VALUE;
+        for (File file : files) {
+            SampleFile sample = new SampleFile(file);
+            indexes.add(new Index(sample));
+            start = Math.min(start, sample.getStartMillis());
+        }
+        
+        // Windows start with the first recorder, aligned to their width
+        this.origin = TimeUnit.MILLISECONDS.toNanos(start == Long.MAX_VALUE ? 0L : start);
+        if (window > 0) {
+            this.origin = Math.floorDiv(origin, window) * window;
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            
+            // Index
+            List<Indexing> indexing = new ArrayList<>();
+            for (Index index : indexes) {
+                indexing.add(new Indexing(index, 0, index.min.length));
+            }
+            for (Indexing task : indexing) {
+                pool.execute(task);
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long records = 0;
+            for (Indexing task : indexing) {
+                task.join();
+                for (int block = 0; block < task.index.min.length; block++) {
+                    min = Math.min(min, task.index.min[block]);
+                    max = Math.max(max, task.index.max[block]);
+                    records += task.index.records[block];
+                }
+            }
+            
+            // Range analyzed
+            min = Math.max(min, begin);
+            max = Math.min(max, end - 1);
+            if (records == 0 || min > max) {
+                return;
+            }
+            
+            // Slabs of whole windows or of equal length
+            long slab = Math.max(1L, (long) ((double) (max - min + 1) * SLAB_SAMPLES / records));
+            if (window > 0) {
+                slab = Math.max(1L, slab / window) * window;
+                min = origin + Math.floorDiv(min - origin, window) * window;
+            }
+            List<Slab> slabs = new ArrayList<>();
+            for (long from = min; from <= max; from += slab) {
+                Slab task = new Slab(from, Math.min(from + slab, max + 1));
+                slabs.add(task);
+                pool.execute(task);
+            }
+            
+            // Collect, in order of time
+            Map<Long, Aggregate> total = new HashMap<>();
+            for (Slab task : slabs) {
+                Map<Long, Aggregate> aggregates = task.join();
+                rows.addAll(task.rows);
+                for (Entry<Long, Aggregate> entry : aggregates.entrySet()) {
+                    Aggregate aggregate = total.get(entry.getKey());
+                    if (aggregate == null) {
+                        total.put(entry.getKey(), entry.getValue());
+                    } else {
+                        aggregate.add(entry.getValue());
+                    }
+                }
+            }
+            rows.addAll(getRows(total, null));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Returns the time of a sample by which it is assigned to windows and filtered.
+     * 
+     * @param file
+     * @param slot
+     * @return the time in nanoseconds since the epoch
+     */
+    private long getTime(SampleFile file, int slot) {
+        long time = file.getIntended(slot);
+        if (reference == TimeReference.COMPLETED) {
+            time += file.getLatency(slot);
+        }
+        return file.toEpochNanos(time);
+    }
+    
+    /**
+     * Returns the window of a time.
+     * 
+     * @param time in nanoseconds since the epoch
+     * @return the window
+     */
+    private long getWindow(long time) {
+        return window > 0 ? Math.floorDiv(time - origin, window) : 0L;
+    }
+    
+    /**
+     * Returns the group of a sample.
+     * 
+     * @param type the type of work, its ordinal plus one
+     * @param status the status
+     * @param worker the worker
+     * @return the group
+     */
+    private int getGroup(int type, int status, int worker) {
+        switch (grouping) {
+            case OPERATION:
+                return type - 1;
+            case WORKER:
+                return (int) (worker & (GROUPS - 1));
+            case STATUS:
+                return status;
+            default:
+                return 0;
+        }
+    }
+    
+    /**
+     * Returns the name of a group.
+     * 
+     * @param group
+     * @return the name
+     */
+    private String getGroupName(int group) {
+        switch (grouping) {
+            case OPERATION:
+                return group < WorkType.values().length ? WorkType.values()[group].name().toLowerCase() : "unknown";
+            case WORKER:
+                return String.valueOf(group);
+            case STATUS:
+                if (group == SampleRecorder.STATUS_OK) {
+                    return "ok";
+                } else if (group == SampleRecorder.STATUS_MISS) {
+                    return "miss";
+                }
+                int error = group - SampleRecorder.STATUS_MISS - 1;
+                return error >= 0 && error < ErrorType.values().length ? ErrorType.values()[error].name().toLowerCase() : "unknown";
+            default:
+                return "all";
+        }
+    }
+    
+    /**
+     * Reduces aggregates to rows, in the order of their windows and groups.
+     * 
+     * @param aggregates
+     * @param histogram to record buffered latencies into, null if the aggregates have been recorded
+     * @return the rows
+     */
+    private List<Row> getRows(Map<Long, Aggregate> aggregates, Histogram histogram) {
+        List<Row> result = new ArrayList<>();
+        for (Entry<Long, Aggregate> entry : new TreeMap<>(aggregates).entrySet()) {
+            long key = entry.getKey();
+            Aggregate aggregate = entry.getValue();
+            Histogram latencies = histogram != null ? aggregate.record(histogram) : aggregate.latencies;
+            String group = getGroupName((int) Math.floorMod(key, GROUPS));
+            if (window > 0) {
+                result.add(new Row(origin + Math.floorDiv(key, GROUPS) * window, window, group, aggregate, latencies));
+            } else {
+                result.add(new Row(aggregate.first, aggregate.last - aggregate.first, group, aggregate, latencies));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of files analyzed.
+     * 
+     * @return the number of files
+     */
+    public int getFiles() {
+        return indexes.size();
+    }
+    
+    /**
+     * Returns the number of samples that passed the filters.
+     * 
+     * @return the number of samples
+     */
+    public long getSamples() {
+        long samples = 0;
+        for (Row row : rows) {
+            samples += row.count;
+        }
+        return samples;
+    }
+    
+    /**
+     * Returns the name of a percentile.
+     * 
+     * @param percentile
+     * @return the name
+     */
+    private static String getName(double percentile) {
+        return "p" + String.valueOf(percentile).replace(".0", "");
+    }
+    
+    /**
+     * Writes the result as CSV, one line per window and group. Latencies are given in milliseconds.
+     * 
+     * @param writer
+     * @throws IOException
+     */
+    public void reportCSV(Writer writer) throws IOException {
+        
+        // Print header
+        StringBuilder builder = new StringBuilder();
+        builder.append("Window start").append(";");
+        builder.append("Group").append(";");
+        builder.append("Count").append(";");
+        builder.append("TPS").append(";");
+        builder.append("Misses").append(";");
+        builder.append("Errors").append(";");
+        builder.append("mean [ms]");
+        for (double percentile : PERCENTILES) {
+            builder.append(";").append(getName(percentile)).append(" [ms]");
+        }
+        builder.append(";").append("max [ms]").append("\n");
+        writer.write(builder.toString());
+        
+        // Print one line per window and group
+        for (Row row : rows) {
+            builder.setLength(0);
+            builder.append(FORMAT.format(Instant.ofEpochSecond(0L, row.start))).append(";");
+            builder.append(row.group).append(";");
+            builder.append(row.count).append(";");
+            builder.append(format(row.throughput)).append(";");
+            builder.append(row.misses).append(";");
+            builder.append(row.errors).append(";");
+            builder.append(format(row.mean));
+            for (double percentile : row.percentiles) {
+                builder.append(";").append(format(percentile));
+            }
+            builder.append(";").append(format(row.max)).append("\n");
+            writer.write(builder.toString());
+        }
+    }
+    
+    /**
+     * Writes the result as JSON, including the parameters of the analysis. Latencies are given in milliseconds.
+     * 
+     * @param writer
+     * @throws IOException
+     */
+    public void reportJSON(Writer writer) throws IOException {
+        JsonGenerator generator = new JsonFactory().createGenerator(writer).useDefaultPrettyPrinter();
+        generator.writeStartObject();
+        generator.writeNumberField("files", getFiles());
+        generator.writeNumberField("samples", getSamples());
+        generator.writeNumberField("window", TimeUnit.NANOSECONDS.toMillis(window));
+        generator.writeStringField("grouping", grouping.name().toLowerCase());
+        generator.writeStringField("time", reference.name().toLowerCase());
+        generator.writeBooleanField("warmup", warmup);
+        generator.writeArrayFieldStart("rows");
+        for (Row row : rows) {
+            generator.writeStartObject();
+            generator.writeStringField("start", FORMAT.format(Instant.ofEpochSecond(0L, row.start)));
+            generator.writeNumberField("startMillis", TimeUnit.NANOSECONDS.toMillis(row.start));
+            generator.writeStringField("group", row.group);
+            generator.writeNumberField("count", row.count);
+            generator.writeNumberField("throughput", round(row.throughput));
+            generator.writeNumberField("misses", row.misses);
+            generator.writeNumberField("errors", row.errors);
+            generator.writeNumberField("mean", round(row.mean));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                generator.writeNumberField(getName(PERCENTILES[i]), round(row.percentiles[i]));
+            }
+            generator.writeNumberField("max", round(row.max));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+    
+    /**
+     * Formats a value for CSV output.
+     * 
+     * @param value
+     * @return the formatted value
+     */
+    private static String format(double value) {
+        return String.valueOf(round(value)).replace('.', ',');
+    }
+    
+    /**
+     * Rounds to three decimal places.
+     * 
+     * @param value
+     * @return the rounded value
+     */
+    private static double round(double value) {
+        return (double) Math.round(value * 1000d) / 1000d;
+    }
+}
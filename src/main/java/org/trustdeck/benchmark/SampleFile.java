@@ -0,0 +1,230 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file of samples written by a {@link SampleRecorder}, mapped into memory for reading. Thread safe,
+ * so that several threads can scan disjoint ranges of the records at the same time.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class SampleFile {
+    
+    /** The file. */
+    private final File file;
+    
+    /** Mapped content. */
+    private final MappedByteBuffer buffer;
+    
+    /** Number of slots for records. */
+    private final int capacity;
+    
+    /** Offset to be added to times of this file to convert them into nanoseconds since the epoch. */
+    private final long epochOffset;
+    
+    /**
+     * Maps a file and checks its header.
+     * 
+     * @param file
+     * @throws IOException
+     */
+    public SampleFile(File file) throws IOException {
+        
+        // Map
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < SampleRecorder.HEADER_SIZE) {
+                throw new IOException("Not a sample file: " + file);
+            }
+            this.buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            this.buffer.order(SampleRecorder.ORDER);
+        }
+        
+        // Check header
+        if (buffer.getInt(0) != SampleRecorder.MAGIC) {
+            throw new IOException("Not a sample file: " + file);
+        }
+        if (buffer.getInt(4) != SampleRecorder.VERSION || buffer.getInt(8) != SampleRecorder.RECORD_SIZE) {
+            throw new IOException("Unsupported version of sample file: " + file);
+        }
+        this.capacity = Math.min(buffer.getInt(12), (buffer.capacity() - SampleRecorder.HEADER_SIZE) / SampleRecorder.RECORD_SIZE);
+        this.epochOffset = buffer.getLong(24) * 1000000L - buffer.getLong(32);
+    }
+    
+    /**
+     * Collects the sample files in the given files and directories. Directories are not searched recursively.
+     * 
+     * @param paths files or directories
+     * @return the files, sorted by name
+     * @throws IOException if a path does not exist
+     */
+    public static List<File> find(List<String> paths) throws IOException {
+        List<File> result = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] files = file.listFiles((directory, name) -> name.endsWith(SampleRecorder.SUFFIX));
+                Arrays.sort(files);
+                result.addAll(Arrays.asList(files));
+            } else if (file.isFile()) {
+                result.add(file);
+            } else {
+                throw new IOException("No such file or directory: " + path);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the file.
+     * 
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Returns the number of slots for records, including slots that have not been written to.
+     * 
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the wall clock time at which the recorder that wrote this file was created.
+     * 
+     * @return the time in milliseconds since the epoch
+     */
+    public long getStartMillis() {
+        return buffer.getLong(24);
+    }
+    
+    /**
+     * Converts a time of this file, i.e. a value of {@link System#nanoTime()} of the process that wrote it,
+     * into nanoseconds since the epoch.
+     * 
+     * @param nanos
+     * @return the time in nanoseconds since the epoch
+     */
+    public long toEpochNanos(long nanos) {
+        return epochOffset + nanos;
+    }
+    
+    /**
+     * Returns the type of work of a record, its ordinal plus one, or zero if the slot has not been written to.
+     * 
+     * @param slot
+     * @return the type
+     */
+    public int getType(int slot) {
+        return buffer.get(offset(slot) + 36);
+    }
+    
+    /**
+     * Returns the actual start time of a record.
+     * 
+     * @param slot
+     * @return the time in nanoseconds
+     */
+    public long getStarted(int slot) {
+        return buffer.getLong(offset(slot));
+    }
+    
+    /**
+     * Returns the intended start time of a record.
+     * 
+     * @param slot
+     * @return the time in nanoseconds
+     */
+    public long getIntended(int slot) {
+        return buffer.getLong(offset(slot) + 8);
+    }
+    
+    /**
+     * Returns the latency of a record.
+     * 
+     * @param slot
+     * @return the latency in nanoseconds
+     */
+    public long getLatency(int slot) {
+        return buffer.getLong(offset(slot) + 16);
+    }
+    
+    /**
+     * Returns the key of a record.
+     * 
+     * @param slot
+     * @return the key
+     */
+    public long getKey(int slot) {
+        return buffer.getLong(offset(slot) + 24);
+    }
+    
+    /**
+     * Returns the worker of a record.
+     * 
+     * @param slot
+     * @return the worker
+     */
+    public int getWorker(int slot) {
+        return buffer.getInt(offset(slot) + 32);
+    }
+    
+    /**
+     * Returns the status of a record.
+     * 
+     * @param slot
+     * @return the status
+     */
+    public int getStatus(int slot) {
+        return buffer.get(offset(slot) + 37);
+    }
+    
+    /**
+     * Returns whether a record belongs to the warm-up.
+     * 
+     * @param slot
+     * @return whether it belongs to the warm-up
+     */
+    public boolean isWarmup(int slot) {
+        return (buffer.get(offset(slot) + 38) & SampleRecorder.FLAG_WARMUP) != 0;
+    }
+    
+    /**
+     * Returns the offset of a record.
+     * 
+     * @param slot
+     * @return the offset
+     */
+    private static int offset(int slot) {
+        return SampleRecorder.HEADER_SIZE + slot * SampleRecorder.RECORD_SIZE;
+    }
+}
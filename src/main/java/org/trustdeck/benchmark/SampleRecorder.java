@@ -0,0 +1,393 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
+
+/**
+ * Records one sample of fixed size per request into memory-mapped files, so that a run can be analyzed
+ * request by request after the fact. Writers claim a slot with a single atomic increment and write into
+ * the mapped file directly, without locking and without allocating. When a file is full, writing continues
+ * in the next one, which has been mapped in the background before. If the number of files is limited, the
+ * oldest file is deleted whenever a new one is created.<br>
+ * <br>
+ * Each file starts with a header of {@link #HEADER_SIZE} bytes, followed by the records of {@link #RECORD_SIZE}
+ * bytes each. All numbers are little-endian. Layout of the header:
+ * <ul>
+ * <li>0: magic number {@link #MAGIC} (int)</li>
+ * <li>4: version {@link #VERSION} (int)</li>
+ * <li>8: size of a record in bytes (int)</li>
+ * <li>12: number of records per file (int)</li>
+ * <li>16: sequence number of the file, starting at zero (long)</li>
+ * <li>24: wall clock time in milliseconds at which the recorder was created (long)</li>
+ * <li>32: value of {@link System#nanoTime()} at the same moment (long)</li>
+ * </ul>
+ * Layout of a record:
+ * <ul>
+ * <li>0: actual start time, from {@link System#nanoTime()} (long)</li>
+ * <li>8: intended start time, from {@link System#nanoTime()} (long)</li>
+ * <li>16: latency in nanoseconds, measured from the intended start time (long)</li>
+ * <li>24: key accessed, the first key of batches, {@link #NO_KEY} for pings (long)</li>
+ * <li>32: worker (int)</li>
+ * <li>36: type of work, its ordinal plus one (byte)</li>
+ * <li>37: status, see {@link #STATUS_OK}, {@link #STATUS_MISS} and {@link #status(ErrorType)} (byte)</li>
+ * <li>38: flags, see {@link #FLAG_WARMUP} (byte)</li>
+ * <li>39: reserved</li>
+ * </ul>
+ * Slots that have not been written to contain zeros, and are recognized by their type being zero.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class SampleRecorder implements Closeable {
+    
+    /** Magic number at the start of each file. */
+    public static final int MAGIC = 0x41434553;
+    
+    /** Version of the format. */
+    public static final int VERSION = 1;
+    
+    /** Size of the header of each file in bytes. */
+    public static final int HEADER_SIZE = 64;
+    
+    /** Size of each record in bytes. */
+    public static final int RECORD_SIZE = 40;
+    
+    /** Suffix of the files. */
+    public static final String SUFFIX = ".samples";
+    
+    /** Byte order of the files. */
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    
+    /** Status of successful work. */
+    public static final int STATUS_OK = 0;
+    
+    /** Status of work that did not find the pseudonym it targeted. */
+    public static final int STATUS_MISS = 1;
+    
+    /** Key of work that does not access a key. */
+    public static final long NO_KEY = -1L;
+    
+    /** Flag of work performed during the warm-up. */
+    public static final int FLAG_WARMUP = 1;
+    
+    /** Number of files that are mapped at the same time. Older files are mapped again for late writers. */
+    private static final int SEGMENTS = 4;
+    
+    /**
+     * A mapped file.
+     */
+    private static class Segment {
+        
+        /** Sequence number of the file. */
+        private final long file;
+        
+        /** Mapped content. */
+        private final MappedByteBuffer buffer;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param file
+         * @param buffer
+         */
+        private Segment(long file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+    
+    /** Directory of the files. */
+    private final File directory;
+    
+    /** Prefix of the names of the files. */
+    private final String name;
+    
+    /** Number of records per file. */
+    private final int recordsPerFile;
+    
+    /** Size of each file in bytes. */
+    private final long fileSize;
+    
+    /** Maximal number of files, zero for no limit. */
+    private final int maxFiles;
+    
+    /** Wall clock time at which the recorder was created. */
+    private final long startMillis;
+    
+    /** Time in nanoseconds at which the recorder was created. */
+    private final long startNanos;
+    
+    /** Sequence number of the next record. */
+    private final AtomicLong sequence = new AtomicLong();
+    
+    /** Number of records that could not be written. */
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /** Files mapped, indexed by their sequence number modulo the number of segments. */
+    private final AtomicReferenceArray<Segment> segments = new AtomicReferenceArray<>(SEGMENTS);
+    
+    /** Maps files ahead of the writers. */
+    private final ExecutorService mapper;
+    
+    /** Sequence number of the newest file. Guarded by this. */
+    private long newest = -1;
+    
+    /** Whether the recorder has been closed. */
+    private volatile boolean closed = false;
+    
+    /**
+     * Creates a new instance and maps the first files.
+     * 
+     * @param settings
+     * @param name prefix of the names of the files
+     * @throws IOException
+     */
+    public SampleRecorder(SampleSettings settings, String name) throws IOException {
+        
+        // Store
+        this.directory = new File(settings.getDirectory());
+        this.name = name;
+        this.recordsPerFile = (int) ((settings.getFileSize() * 1024L * 1024L - HEADER_SIZE) / RECORD_SIZE);
+        this.fileSize = HEADER_SIZE + (long) recordsPerFile * RECORD_SIZE;
+        this.maxFiles = settings.getMaxFiles();
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        
+        // Prepare
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.mapper = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sample-mapper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        segment(0);
+        segment(1);
+    }
+    
+    /**
+     * Returns the status of failed work.
+     * 
+     * @param error the type of error
+     * @return the status
+     */
+    public static int status(ErrorType error) {
+        return STATUS_MISS + 1 + error.ordinal();
+    }
+    
+    /**
+     * Records a sample. Thread safe, does not block unless the files cannot be mapped ahead of the writers.
+     * 
+     * @param started actual start time in nanoseconds
+     * @param intended intended start time in nanoseconds
+     * @param latency latency in nanoseconds
+     * @param type type of work
+     * @param status status of the work
+     * @param worker the worker
+     * @param key the key accessed
+     * @param warmup whether the work was performed during the warm-up
+     */
+    public void record(long started, long intended, long latency, WorkType type, int status, int worker, long key, boolean warmup) {
+        
+        // Claim a slot
+        long index = sequence.getAndIncrement();
+        long file = index / recordsPerFile;
+        int slot = (int) (index - file * recordsPerFile);
+        
+        // The first record of a file triggers mapping the next one, unless the recorder has been closed
+        if (slot == 0 && file > 0 && !closed) {
+            final long next = file + 1;
+            try {
+                mapper.execute(() -> {
+                    try {
+                        segment(next);
+                    } catch (IOException e) {
+                        // Writers will retry and drop their records if mapping still fails
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed concurrently, the next file is not needed
+            }
+        }
+        
+        // Get file, the slow path is only taken when the mapper is late or by writers that are very late
+        Segment segment = segments.get((int) (file % SEGMENTS));
+        if (segment == null || segment.file != file) {
+            try {
+                segment = segment(file);
+            } catch (IOException e) {
+                segment = null;
+            }
+            if (segment == null) {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        
+        // Write, the type is written last, as it marks the slot as used
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = HEADER_SIZE + slot * RECORD_SIZE;
+        buffer.putLong(offset, started);
+        buffer.putLong(offset + 8, intended);
+        buffer.putLong(offset + 16, latency);
+        buffer.putLong(offset + 24, key);
+        buffer.putInt(offset + 32, worker);
+        buffer.put(offset + 37, (byte) status);
+        buffer.put(offset + 38, (byte) (warmup ? FLAG_WARMUP : 0));
+        buffer.put(offset + 36, (byte) (type.ordinal() + 1));
+    }
+    
+    /**
+     * Returns the mapped file with the given sequence number, creating it if it does not exist yet.
+     * 
+     * @param file the sequence number
+     * @return the mapped file or null, if it has already been deleted or the recorder is closed
+     * @throws IOException
+     */
+    private synchronized Segment segment(long file) throws IOException {
+        
+        // Already mapped
+        int index = (int) (file % SEGMENTS);
+        Segment segment = segments.get(index);
+        if (segment != null && segment.file == file) {
+            return segment;
+        }
+        
+        // Check
+        if (closed || (maxFiles > 0 && file <= newest - maxFiles)) {
+            return null;
+        }
+        
+        // Map
+        File path = getFile(file);
+        MappedByteBuffer buffer;
+        boolean created;
+        try (RandomAccessFile raf = new RandomAccessFile(path, "rw")) {
+            created = raf.length() == 0;
+            if (created) {
+                raf.setLength(fileSize);
+            }
+            buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ORDER);
+        }
+        
+        // Write header
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, recordsPerFile);
+            buffer.putLong(16, file);
+            buffer.putLong(24, startMillis);
+            buffer.putLong(32, startNanos);
+            
+            // Rotate
+            if (maxFiles > 0 && file >= maxFiles) {
+                getFile(file - maxFiles).delete();
+            }
+        }
+        
+        // Store, unless a newer file already uses the slot
+        segment = new Segment(file, buffer);
+        if (segments.get(index) == null || segments.get(index).file < file) {
+            segments.set(index, segment);
+        }
+        newest = Math.max(newest, file);
+        return segment;
+    }
+    
+    /**
+     * Returns the file with the given sequence number.
+     * 
+     * @param file
+     * @return the file
+     */
+    private File getFile(long file) {
+        return new File(directory, String.format("%s-%06d%s", name, file, SUFFIX));
+    }
+    
+    /**
+     * Returns the number of records written.
+     * 
+     * @return the number of records
+     */
+    public long getRecords() {
+        return sequence.get() - dropped.get();
+    }
+    
+    /**
+     * Returns the number of records that could not be written.
+     * 
+     * @return the number of records
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    /**
+     * Returns the directory of the files.
+     * 
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Writes the mapped files to disk. Records of work that completes later still end up in the mapped
+     * files, as long as no new file is needed for them, and are written to disk by the operating system.
+     */
+    @Override
+    public void close() {
+        
+        // Stop
+        closed = true;
+        mapper.shutdown();
+        try {
+            mapper.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Write
+        synchronized (this) {
+            for (int i = 0; i < SEGMENTS; i++) {
+                Segment segment = segments.get(i);
+                if (segment != null) {
+                    segment.buffer.force();
+                }
+            }
+        }
+    }
+}
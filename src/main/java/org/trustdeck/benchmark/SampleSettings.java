@@ -0,0 +1,72 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Settings of the recording of samples, i.e. of one record per request, see {@link SampleRecorder}.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class SampleSettings implements Serializable {
+    
+    /** SVUID */
+    private static final long serialVersionUID = -2470318563527940154L;
+    
+    /** Directory the files are written to. */
+    private String directory = "samples";
+    
+    /** Size of each file in megabytes. */
+    private int fileSize = 64;
+    
+    /** Maximal number of files kept per run. The oldest file is deleted when a new one is started. Zero keeps all files. */
+    private int maxFiles = 0;
+    
+    /**
+     * Basic constructor using the default settings.
+     */
+    public SampleSettings() {
+        // Empty by design
+    }
+    
+    /**
+     * Creates settings from the given configuration. Missing values are set to their defaults.
+     * 
+     * @param config the samples section of the configuration file, may be null
+     */
+    public SampleSettings(Map<String, Object> config) {
+        if (config != null) {
+            this.directory = (String) config.getOrDefault("directory", directory);
+            this.fileSize = (int) config.getOrDefault("fileSize", fileSize);
+            this.maxFiles = (int) config.getOrDefault("maxFiles", maxFiles);
+        }
+        
+        // Checks
+        if (fileSize <= 0 || fileSize > 2047) {
+            throw new IllegalStateException("Size of the sample files must be between 1 and 2047 megabytes.");
+        }
+        if (maxFiles < 0 || maxFiles == 1 || maxFiles == 2) {
+            throw new IllegalStateException("Maximal number of sample files must be zero (unlimited) or at least three.");
+        }
+    }
+}
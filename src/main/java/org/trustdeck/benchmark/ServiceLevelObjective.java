@@ -0,0 +1,97 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Service level objective and parameters of the search of the maximal sustainable throughput.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class ServiceLevelObjective implements Serializable {
+    
+    /** SVUID */
+    private static final long serialVersionUID = 6010542310915447785L;
+    
+    /** Maximal 99th percentile of the latency in milliseconds. */
+    private double p99 = 100d;
+    
+    /** Maximal fraction of failed operations. */
+    private double errorRate = 0.01d;
+    
+    /** Minimal fraction of the target rate that must be completed. */
+    private double minThroughputRatio = 0.95d;
+    
+    /** Target rate of the first step in requests per second. */
+    private int startRate = 100;
+    
+    /** Highest target rate tried in requests per second. */
+    private int maxRate = 100000;
+    
+    /** Factor by which the target rate is increased while stepping up. */
+    private double stepFactor = 2d;
+    
+    /** Width of the final search interval relative to its upper bound, at which the search stops. */
+    private double resolution = 0.05d;
+    
+    /** Duration of the measurement of each step in milliseconds. */
+    private int stepTime = 60000;
+    
+    /**
+     * Creates an objective from the given configuration. Missing values are set to their defaults.
+     * 
+     * @param config the objective section of a scenario
+     */
+    public ServiceLevelObjective(Map<String, Object> config) {
+        if (config != null) {
+            this.p99 = ((Number) config.getOrDefault("p99", p99)).doubleValue();
+            this.errorRate = ((Number) config.getOrDefault("errorRate", errorRate)).doubleValue();
+            this.minThroughputRatio = ((Number) config.getOrDefault("minThroughputRatio", minThroughputRatio)).doubleValue();
+            this.startRate = (int) config.getOrDefault("startRate", startRate);
+            this.maxRate = (int) config.getOrDefault("maxRate", maxRate);
+            this.stepFactor = ((Number) config.getOrDefault("stepFactor", stepFactor)).doubleValue();
+            this.resolution = ((Number) config.getOrDefault("resolution", resolution)).doubleValue();
+            this.stepTime = (int) config.getOrDefault("stepTime", stepTime);
+        }
+        
+        // Checks
+        if (p99 <= 0d || errorRate < 0d || errorRate > 1d || minThroughputRatio < 0d || minThroughputRatio > 1d) {
+            throw new IllegalStateException("Latency target must be positive, error rate and throughput ratio must be between 0 and 1.");
+        }
+        if (startRate <= 0 || maxRate < startRate || stepFactor <= 1d || resolution <= 0d || stepTime <= 0) {
+            throw new IllegalStateException("Rates and step time must be positive, the step factor greater than one and the resolution positive.");
+        }
+    }
+    
+    /**
+     * Returns whether a run met the objective.
+     * 
+     * @param result the result of the run
+     * @param targetRate the target rate of the run in requests per second
+     * @return
+     */
+    public boolean isMet(RunResult result, int targetRate) {
+        double completed = result.getDuration() == 0d ? 0d : (double) (result.getOperations() + result.getErrors()) / result.getDuration();
+        return result.getP99() <= p99 && result.getErrorRate() <= errorRate && completed >= minThroughputRatio * targetRate;
+    }
+}
@@ -18,10 +18,23 @@
 package org.trustdeck.benchmark;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
 
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
 import org.trustdeck.benchmark.connector.ConnectorException;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
 
 import lombok.Getter;
 
@@ -32,12 +45,95 @@ import lombok.Getter;
  */
 public class Statistics {
 
+    /** Highest latency that can be tracked in microseconds. Larger values are clamped. */
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(24);
+    
+    /** Number of significant decimal digits kept by the latency histograms. */
+    private static final int SIGNIFICANT_DIGITS = 3;
+    
+    /** Percentiles reported for each operation. */
+    private static final double[] PERCENTILES = new double[] {50d, 99d, 99.9d};
+    
+    /**
+     * Everything recorded by a driver since its previous snapshot. Used to merge the statistics of
+     * several drivers. Latency histograms are compressed.
+     */
+    public static class Snapshot implements Serializable {
+        
+        /** SVUID */
+        private static final long serialVersionUID = 4186512407236940123L;
+        
+        /** Numbers of operations, misses and failed operations, followed by the number of records of batch requests. */
+        private final long[] counters;
+        
+        /** Number of failed operations per type of work. */
+        private final long[] errors;
+        
+        /** Number of failed operations per type of error. */
+        private final long[] errorTypes;
+        
+        /** Change of the number of active workers. */
+        private final int activeWorkers;
+        
+        /** Number of operations offered. */
+        private final long offered;
+        
+        /** Latencies per type of work. */
+        private final byte[][] latencies;
+        
+        /** Latencies of misses. */
+        private final byte[] misses;
+        
+        /** Latencies of failed operations. */
+        private final byte[] failures;
+        
+        /** Gauges of the driver. */
+        @Getter
+        private final Map<String, Long> gauges;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param counters
+         * @param errors
+         * @param errorTypes
+         * @param activeWorkers
+         * @param offered
+         * @param latencies
+         * @param misses
+         * @param failures
+         * @param gauges
+         */
+        private Snapshot(long[] counters, long[] errors, long[] errorTypes, int activeWorkers, long offered,
+                         byte[][] latencies, byte[] misses, byte[] failures, Map<String, Long> gauges) {
+            this.counters = counters;
+            this.errors = errors;
+            this.errorTypes = errorTypes;
+            this.activeWorkers = activeWorkers;
+            this.offered = offered;
+            this.latencies = latencies;
+            this.misses = misses;
+            this.failures = failures;
+            this.gauges = gauges;
+        }
+    }
+
     /** The configuration object. */
     private final Configuration config;
+    
+    /** The schedule of the work, used to determine the offered load. */
+    private final WorkSchedule schedule;
 
-    /** The start time of the benchmark run. */
+    /** The start time of the benchmark run in nanoseconds, see {@link System#nanoTime()}. */
+    @Getter
+    private volatile long startTime;
+    
+    /** The end time of the benchmark run in nanoseconds, set when reporting the totals. */
+    private long endTime;
+    
+    /** Whether the statistics are in the warm-up phase, whose results are discarded. */
     @Getter
-    private long startTime;
+    private volatile boolean warmup;
 
     /** Atomic number of creates. */
     private final AtomicInteger creates = new AtomicInteger();
@@ -53,14 +149,54 @@ public class Statistics {
     
     /** Atomic number of pings. */
     private final AtomicInteger pings 	= new AtomicInteger();
+    
+    /** Atomic number of reads of pseudonyms that did not exist. */
+    private final AtomicInteger readMisses = new AtomicInteger();
+    
+    /** Atomic number of updates of pseudonyms that did not exist. */
+    private final AtomicInteger updateMisses = new AtomicInteger();
+    
+    /** Atomic number of deletes of pseudonyms that did not exist. */
+    private final AtomicInteger deleteMisses = new AtomicInteger();
+    
+    /** Atomic number of batch create requests. */
+    private final AtomicInteger batchCreates = new AtomicInteger();
+    
+    /** Atomic number of batch read requests. */
+    private final AtomicInteger batchReads = new AtomicInteger();
+    
+    /** Atomic number of records processed by batch requests. */
+    private final AtomicLong batchRecords = new AtomicLong();
+    
+    /** Atomic number of failed operations per type of work. */
+    private final Map<WorkType, AtomicInteger> errors = new EnumMap<>(WorkType.class);
+    
+    /** Atomic number of failed operations per type of error. */
+    private final Map<ErrorType, AtomicInteger> errorTypes = new EnumMap<>(ErrorType.class);
+    
+    /** Atomic number of failed operations. */
+    private final AtomicInteger errorCount = new AtomicInteger();
+    
+    /** Atomic number of workers that are currently running. */
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    
+    /** Atomic number of operations offered by other drivers. */
+    private final AtomicLong remoteOffered = new AtomicLong();
+    
+    /** Number of active workers at the last snapshot. */
+    private int snapshotWorkers = 0;
+    
+    /** Number of offered operations at the last snapshot. */
+    private long snapshotOffered = 0;
 
-    /** Last time the statistics were gathered. */
-    @Getter
+    /** Last time the statistics were gathered in nanoseconds. */
     private long lastTime = 0;
     
-    /** Last time the database statistics were gathered. */
-    @Getter
-    private long lastTimeDB = 0;
+    /** Whether the header of the statistics has been written. */
+    private boolean header = false;
+    
+    /** Whether the header of the database statistics has been written. */
+    private boolean headerDB = false;
     
     /** Number of creates from last statistic-gathering. */
     private int lastCreates = 0;
@@ -77,79 +213,389 @@ public class Statistics {
     /** Number of pings from last statistic-gathering */
     private int lastPings = 0;
     
+    /** Number of batch creates from last statistic-gathering */
+    private int lastBatchCreates = 0;
+    
+    /** Number of batch reads from last statistic-gathering */
+    private int lastBatchReads = 0;
+    
+    /** Number of records processed by batch requests from last statistic-gathering */
+    private long lastBatchRecords = 0;
+    
     /** Number of combined creates, reads, updates, and deletes from last statistic-gathering */
     private int lastCRUDs = 0;
+    
+    /** Number of offered operations from last statistic-gathering */
+    private long lastOffered = 0;
+    
+    /** Number of failed operations from last statistic-gathering */
+    private int lastErrors = 0;
+    
+    /** Lock-free latency recorders per type of work, in microseconds. */
+    private final Map<WorkType, Recorder> recorders = new EnumMap<>(WorkType.class);
+    
+    /** Latency histograms of the last interval per type of work. Recycled by the recorders. */
+    private final Map<WorkType, Histogram> intervalHistograms = new EnumMap<>(WorkType.class);
+    
+    /** Latency histograms since the start per type of work. */
+    private final Map<WorkType, Histogram> totalHistograms = new EnumMap<>(WorkType.class);
+    
+    /** Lock-free latency recorder of reads, updates, and deletes of pseudonyms that did not exist, in microseconds. */
+    private final Recorder missRecorder = new Recorder(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+    
+    /** Latency histogram of misses of the last interval. Recycled by the recorder. */
+    private Histogram intervalMissHistogram;
+    
+    /** Latency histogram of misses since the start. */
+    private final Histogram totalMissHistogram = new Histogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+    
+    /** Lock-free latency recorder of failed operations, in microseconds. */
+    private final Recorder errorRecorder = new Recorder(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+    
+    /** Latency histogram of failed operations of the last interval. Recycled by the recorder. */
+    private Histogram intervalErrorHistogram;
+    
+    /** Latency histogram of failed operations since the start. */
+    private final Histogram totalErrorHistogram = new Histogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
    
     /**
      * Creates a new instance.
      * 
      * @param configuration
+     * @param schedule
      */
-    public Statistics(Configuration configuration) {
+    public Statistics(Configuration configuration, WorkSchedule schedule) {
         this.config = configuration;
+        this.schedule = schedule;
+        for (WorkType type : WorkType.values()) {
+            this.recorders.put(type, new Recorder(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS));
+            this.totalHistograms.put(type, new Histogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS));
+            this.errors.put(type, new AtomicInteger());
+        }
+        for (ErrorType type : ErrorType.values()) {
+            this.errorTypes.put(type, new AtomicInteger());
+        }
     }
     
     /**
      * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the operation in nanoseconds
      */
-    public void addCreate() {
+    public void addCreate(long latency) {
         this.creates.incrementAndGet();
+        this.recordLatency(WorkType.CREATE, latency);
     }
     
     /**
      * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the operation in nanoseconds
+     * @param found whether the pseudonym was found
      */
-    public void addDelete() {
+    public void addDelete(long latency, boolean found) {
         this.deletes.incrementAndGet();
+        if (found) {
+            this.recordLatency(WorkType.DELETE, latency);
+        } else {
+            this.deleteMisses.incrementAndGet();
+            this.recordMiss(latency);
+        }
     }
     
     /**
      * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the operation in nanoseconds
+     * @param found whether the pseudonym was found
      */
-    public void addRead() {
+    public void addRead(long latency, boolean found) {
         this.reads.incrementAndGet();
+        if (found) {
+            this.recordLatency(WorkType.READ, latency);
+        } else {
+            this.readMisses.incrementAndGet();
+            this.recordMiss(latency);
+        }
     }
     
     /**
      * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the operation in nanoseconds
+     * @param found whether the pseudonym was found
      */
-    public void addUpdate() {
+    public void addUpdate(long latency, boolean found) {
         this.updates.incrementAndGet();
+        if (found) {
+            this.recordLatency(WorkType.UPDATE, latency);
+        } else {
+            this.updateMisses.incrementAndGet();
+            this.recordMiss(latency);
+        }
     }
     
     /**
      * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the operation in nanoseconds
      */
-    public void addPing() {
+    public void addPing(long latency) {
         this.pings.incrementAndGet();
+        this.recordLatency(WorkType.PING, latency);
+    }
+    
+    /**
+     * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the batch request in nanoseconds
+     * @param records the number of records in the batch
+     */
+    public void addBatchCreate(long latency, int records) {
+        this.batchCreates.incrementAndGet();
+        this.batchRecords.addAndGet(records);
+        this.recordLatency(WorkType.BATCH_CREATE, latency);
+    }
+    
+    /**
+     * Performance tracking. Thread safe.
+     * 
+     * @param latency the latency of the batch request in nanoseconds
+     * @param records the number of records in the batch
+     */
+    public void addBatchRead(long latency, int records) {
+        this.batchReads.incrementAndGet();
+        this.batchRecords.addAndGet(records);
+        this.recordLatency(WorkType.BATCH_READ, latency);
+    }
+    
+    /**
+     * Performance tracking of failed operations. Thread safe.
+     * 
+     * @param work the type of work that failed
+     * @param error the type of error
+     * @param latency the time until the failure in nanoseconds
+     */
+    public void addError(WorkType work, ErrorType error, long latency) {
+        this.errorCount.incrementAndGet();
+        this.errors.get(work).incrementAndGet();
+        this.errorTypes.get(error).incrementAndGet();
+        this.errorRecorder.recordValue(toMicros(latency));
+    }
+    
+    /**
+     * Tracks a worker that has started. Thread safe.
+     */
+    public void workerStarted() {
+        this.activeWorkers.incrementAndGet();
+    }
+    
+    /**
+     * Tracks a worker that has stopped. Thread safe.
+     */
+    public void workerStopped() {
+        this.activeWorkers.decrementAndGet();
+    }
+    
+    /**
+     * Removes everything recorded so far and returns it. Used by agents, whose statistics are merged by
+     * the coordinator with {@link #add(Snapshot)}. NOT thread safe, but may be called while work is recorded.
+     * 
+     * @param gauges the live gauges of the driver
+     * @return the snapshot
+     */
+    public Snapshot takeSnapshot(Map<String, Long> gauges) {
+        
+        // Counters
+        AtomicInteger[] counters = getCounters();
+        long[] counts = new long[counters.length + 1];
+        for (int i = 0; i < counters.length; i++) {
+            counts[i] = counters[i].getAndSet(0);
+        }
+        counts[counters.length] = batchRecords.getAndSet(0);
+        long[] errors = new long[WorkType.values().length];
+        for (WorkType type : WorkType.values()) {
+            errors[type.ordinal()] = this.errors.get(type).getAndSet(0);
+        }
+        long[] errorTypes = new long[ErrorType.values().length];
+        for (ErrorType type : ErrorType.values()) {
+            errorTypes[type.ordinal()] = this.errorTypes.get(type).getAndSet(0);
+        }
+        
+        // Changes of the gauges
+        int workers = activeWorkers.get();
+        long offered = getOffered();
+        int workersDelta = workers - snapshotWorkers;
+        long offeredDelta = offered - snapshotOffered;
+        snapshotWorkers = workers;
+        snapshotOffered = offered;
+        
+        // Latencies
+        byte[][] latencies = new byte[WorkType.values().length][];
+        for (WorkType type : WorkType.values()) {
+            latencies[type.ordinal()] = encode(recorders.get(type).getIntervalHistogram());
+        }
+        return new Snapshot(counts, errors, errorTypes, workersDelta, offeredDelta, latencies,
+                            encode(missRecorder.getIntervalHistogram()), encode(errorRecorder.getIntervalHistogram()), gauges);
+    }
+    
+    /**
+     * Adds the snapshot of another driver, as if its work had been recorded here. Thread safe.
+     * 
+     * @param snapshot
+     */
+    public void add(Snapshot snapshot) {
+        
+        // Counters
+        AtomicInteger[] counters = getCounters();
+        for (int i = 0; i < counters.length; i++) {
+            counters[i].addAndGet((int) snapshot.counters[i]);
+        }
+        batchRecords.addAndGet(snapshot.counters[counters.length]);
+        for (WorkType type : WorkType.values()) {
+            errors.get(type).addAndGet((int) snapshot.errors[type.ordinal()]);
+        }
+        for (ErrorType type : ErrorType.values()) {
+            errorTypes.get(type).addAndGet((int) snapshot.errorTypes[type.ordinal()]);
+        }
+        activeWorkers.addAndGet(snapshot.activeWorkers);
+        remoteOffered.addAndGet(snapshot.offered);
+        
+        // Latencies
+        for (WorkType type : WorkType.values()) {
+            record(recorders.get(type), snapshot.latencies[type.ordinal()]);
+        }
+        record(missRecorder, snapshot.misses);
+        record(errorRecorder, snapshot.failures);
+    }
+    
+    /**
+     * Returns the counters of operations, in the order used by snapshots.
+     * 
+     * @return
+     */
+    private AtomicInteger[] getCounters() {
+        return new AtomicInteger[] {creates, reads, updates, deletes, pings, readMisses, updateMisses, deleteMisses, batchCreates, batchReads, errorCount};
+    }
+    
+    /**
+     * Returns the number of operations offered by this and other drivers.
+     * 
+     * @return
+     */
+    private long getOffered() {
+        return schedule.getOffered() + remoteOffered.get();
+    }
+    
+    /**
+     * Compresses a histogram.
+     * 
+     * @param histogram
+     * @return the compressed histogram
+     */
+    private static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+    
+    /**
+     * Records the values of a compressed histogram. Thread safe and wait-free.
+     * 
+     * @param recorder
+     * @param data the compressed histogram
+     */
+    private static void record(Recorder recorder, byte[] data) {
+        Histogram histogram;
+        try {
+            histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(data), HIGHEST_TRACKABLE_LATENCY);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Invalid histogram", e);
+        }
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            recorder.recordValueWithCount(value.getValueIteratedTo(), value.getCountAtValueIteratedTo());
+        }
+    }
+    
+    /**
+     * Records a latency in the recorder of the given type of work. Thread safe and wait-free.
+     * 
+     * @param type the type of work
+     * @param latency the latency in nanoseconds
+     */
+    private void recordLatency(WorkType type, long latency) {
+        this.recorders.get(type).recordValue(toMicros(latency));
+    }
+    
+    /**
+     * Records the latency of a miss. Thread safe and wait-free.
+     * 
+     * @param latency the latency in nanoseconds
+     */
+    private void recordMiss(long latency) {
+        this.missRecorder.recordValue(toMicros(latency));
+    }
+    
+    /**
+     * Converts a latency into microseconds within the trackable range.
+     * 
+     * @param latency the latency in nanoseconds
+     * @return the latency in microseconds
+     */
+    private long toMicros(long latency) {
+        return Math.max(1L, Math.min(TimeUnit.NANOSECONDS.toMicros(latency), HIGHEST_TRACKABLE_LATENCY));
     }
 
     /**
      * Reporting. NOT thread safe.
      * 
+     * @param writer
+     * @param gauges the live gauges of the drivers
      * @throws IOException 
      */
-    public void report(Writer writer) throws IOException {
+    public void report(Writer writer, Map<String, Long> gauges) throws IOException {
         
         // Collect data
-        long currentTime = System.currentTimeMillis();
+        long currentTime = System.nanoTime();
         int currentCreates = creates.get();
         int currentReads = reads.get(); 
         int currentUpdates = updates.get();
         int currentDeletes = deletes.get();
         int currentPings = pings.get();
-        int currentCRUDs = currentCreates + currentReads + currentUpdates + currentDeletes + currentPings;
+        int currentBatchCreates = batchCreates.get();
+        int currentBatchReads = batchReads.get();
+        long currentBatchRecords = batchRecords.get();
+        int currentCRUDs = currentCreates + currentReads + currentUpdates + currentDeletes + currentPings + currentBatchCreates + currentBatchReads;
+        long currentOffered = getOffered();
+        int currentErrors = errorCount.get();
+        
+        // Derive parameters from the exact length of the interval in seconds
+        double elapsed = (double) Math.max(1L, currentTime - lastTime) / 1000000000d;
+        double tpsCreate = (double)(currentCreates - lastCreates) / elapsed;
+        double tpsRead = (double)(currentReads - lastReads) / elapsed;
+        double tpsUpdate = (double)(currentUpdates - lastUpdates) / elapsed;
+        double tpsDelete = (double)(currentDeletes - lastDeletes) / elapsed;
+        double tpsPing = (double)(currentPings - lastPings) / elapsed;
+        double tpsOverall = (double)(currentCRUDs - lastCRUDs) / elapsed;
+        double tpsOffered = (double)(currentOffered - lastOffered) / elapsed;
+        double tpsBatchCreate = (double)(currentBatchCreates - lastBatchCreates) / elapsed;
+        double tpsBatchRead = (double)(currentBatchReads - lastBatchReads) / elapsed;
+        double rpsBatch = (double)(currentBatchRecords - lastBatchRecords) / elapsed;
+        double rpsOverall = rpsBatch + tpsCreate + tpsRead + tpsUpdate + tpsDelete;
+        double tpsErrors = (double)(currentErrors - lastErrors) / elapsed;
+        int intervalOperations = (currentCRUDs - lastCRUDs) + (currentErrors - lastErrors);
+        double errorRate = intervalOperations == 0 ? 0d : (double)(currentErrors - lastErrors) / (double)intervalOperations;
+        
+        int currentReadMisses = readMisses.get();
+        int currentUpdateMisses = updateMisses.get();
+        int currentDeleteMisses = deleteMisses.get();
         
-        // Derive parameters
-        double tpsCreate = (double)(currentCreates - lastCreates) / (double)(currentTime - lastTime) * 1000d;
-        double tpsRead = (double)(currentReads - lastReads) / (double)(currentTime - lastTime) * 1000d;
-        double tpsUpdate = (double)(currentUpdates - lastUpdates) / (double)(currentTime - lastTime) * 1000d;
-        double tpsDelete = (double)(currentDeletes - lastDeletes) / (double)(currentTime - lastTime) * 1000d;
-        double tpsPing = (double)(currentPings - lastPings) / (double)(currentTime - lastTime) * 1000d;
-        double tpsOverall = (double)(currentCRUDs - lastCRUDs) / (double)(currentTime - lastTime) * 1000d;
+        // Swap interval histograms and accumulate totals
+        swapIntervals();
         
         // Print header
-        if (lastTime == 0) {
+        if (!header) {
+            header = true;
             
             // Print parameters
             StringBuilder builder = new StringBuilder();
@@ -157,6 +603,7 @@ public class Statistics {
             builder.append("Threads").append(";");
             builder.append("Initial size").append(";");
             builder.append("Time").append(";");
+            builder.append("Phase").append(";");
             builder.append("Num creates").append(";");
             builder.append("Num reads").append(";");
             builder.append("Num updates").append(";");
@@ -166,7 +613,44 @@ public class Statistics {
             builder.append("TPS update").append(";");
             builder.append("TPS delete").append(";");
             builder.append("TPS ping").append(";");
-            builder.append("TPS overall").append("\n");
+            builder.append("TPS overall").append(";");
+            builder.append("TPS offered").append(";");
+            builder.append("Num batch creates").append(";");
+            builder.append("Num batch reads").append(";");
+            builder.append("TPS batch create").append(";");
+            builder.append("TPS batch read").append(";");
+            builder.append("Records/s batch").append(";");
+            builder.append("Records/s overall").append(";");
+            builder.append("Read hits").append(";");
+            builder.append("Read misses").append(";");
+            builder.append("Update hits").append(";");
+            builder.append("Update misses").append(";");
+            builder.append("Delete hits").append(";");
+            builder.append("Delete misses").append(";");
+            builder.append("Active workers").append(";");
+            builder.append("Num errors").append(";");
+            builder.append("TPS errors").append(";");
+            builder.append("Error rate");
+            for (WorkType type : WorkType.values()) {
+                builder.append(";").append("Errors ").append(type.name().toLowerCase());
+            }
+            for (ErrorType type : ErrorType.values()) {
+                builder.append(";").append("Errors ").append(type.name().toLowerCase().replace('_', ' '));
+            }
+            for (WorkType type : WorkType.values()) {
+                appendLatencyHeader(builder, "", type.name().toLowerCase());
+            }
+            appendLatencyHeader(builder, "", "miss");
+            appendLatencyHeader(builder, "", "error");
+            for (WorkType type : WorkType.values()) {
+                appendLatencyHeader(builder, "Total ", type.name().toLowerCase());
+            }
+            appendLatencyHeader(builder, "Total ", "miss");
+            appendLatencyHeader(builder, "Total ", "error");
+            for (String gauge : gauges.keySet()) {
+                builder.append(";").append(gauge);
+            }
+            builder.append("\n");
             writer.write(builder.toString());
         }
         
@@ -175,7 +659,8 @@ public class Statistics {
         builder.append(config.getName()).append(";");
         builder.append(config.getNumThreads()).append(";");
         builder.append(config.getInitialDBSize()).append(";");
-        builder.append(String.valueOf((double)(currentTime - startTime)/1000d).replace('.', ',')).append(";");
+        builder.append(String.valueOf(toSeconds(currentTime)).replace('.', ',')).append(";");
+        builder.append(warmup ? "warmup" : "measurement").append(";");
         builder.append(currentCreates).append(";");
         builder.append(currentReads).append(";");
         builder.append(currentUpdates).append(";");
@@ -185,7 +670,44 @@ public class Statistics {
         builder.append((int)tpsUpdate).append(";");
         builder.append((int)tpsDelete).append(";");
         builder.append((int)tpsPing).append(";");
-        builder.append((int)tpsOverall).append("\n");
+        builder.append((int)tpsOverall).append(";");
+        builder.append((int)tpsOffered).append(";");
+        builder.append(currentBatchCreates).append(";");
+        builder.append(currentBatchReads).append(";");
+        builder.append((int)tpsBatchCreate).append(";");
+        builder.append((int)tpsBatchRead).append(";");
+        builder.append((int)rpsBatch).append(";");
+        builder.append((int)rpsOverall).append(";");
+        builder.append(currentReads - currentReadMisses).append(";");
+        builder.append(currentReadMisses).append(";");
+        builder.append(currentUpdates - currentUpdateMisses).append(";");
+        builder.append(currentUpdateMisses).append(";");
+        builder.append(currentDeletes - currentDeleteMisses).append(";");
+        builder.append(currentDeleteMisses).append(";");
+        builder.append(activeWorkers.get()).append(";");
+        builder.append(currentErrors).append(";");
+        builder.append((int)tpsErrors).append(";");
+        builder.append(String.valueOf((double)Math.round(errorRate * 10000d) / 10000d).replace('.', ','));
+        for (WorkType type : WorkType.values()) {
+            builder.append(";").append(errors.get(type).get());
+        }
+        for (ErrorType type : ErrorType.values()) {
+            builder.append(";").append(errorTypes.get(type).get());
+        }
+        for (WorkType type : WorkType.values()) {
+            appendLatencies(builder, intervalHistograms.get(type));
+        }
+        appendLatencies(builder, intervalMissHistogram);
+        appendLatencies(builder, intervalErrorHistogram);
+        for (WorkType type : WorkType.values()) {
+            appendLatencies(builder, totalHistograms.get(type));
+        }
+        appendLatencies(builder, totalMissHistogram);
+        appendLatencies(builder, totalErrorHistogram);
+        for (Long value : gauges.values()) {
+            builder.append(";").append(value);
+        }
+        builder.append("\n");
         writer.write(builder.toString());
         
         // Store
@@ -195,11 +717,170 @@ public class Statistics {
         this.lastUpdates = currentUpdates;
         this.lastDeletes = currentDeletes;
         this.lastPings = currentPings;
+        this.lastBatchCreates = currentBatchCreates;
+        this.lastBatchReads = currentBatchReads;
+        this.lastBatchRecords = currentBatchRecords;
         this.lastCRUDs = currentCRUDs;
+        this.lastOffered = currentOffered;
+        this.lastErrors = currentErrors;
+    }
+    
+    /**
+     * Reporting of the latency distributions since the start per type of work. NOT thread safe.
+     * Must be called after the last call to {@link #report(Writer, Map)}.
+     * 
+     * @throws IOException 
+     */
+    public void reportTotals(Writer writer) throws IOException {
+        
+        // Include everything recorded since the last interval
+        swapIntervals();
+        endTime = System.nanoTime();
+        double duration = toSeconds(endTime);
+        
+        // Print header
+        StringBuilder builder = new StringBuilder();
+        builder.append("Name").append(";");
+        builder.append("Threads").append(";");
+        builder.append("Operation").append(";");
+        builder.append("Count").append(";");
+        builder.append("TPS").append(";");
+        builder.append("Mean [ms]").append(";");
+        builder.append("p50 [ms]").append(";");
+        builder.append("p90 [ms]").append(";");
+        builder.append("p99 [ms]").append(";");
+        builder.append("p99.9 [ms]").append(";");
+        builder.append("p99.99 [ms]").append(";");
+        builder.append("max [ms]").append("\n");
+        
+        // Print one line per type of work, one for misses, and one for errors
+        for (WorkType type : WorkType.values()) {
+            appendTotals(builder, type.name().toLowerCase(), totalHistograms.get(type), duration);
+        }
+        appendTotals(builder, "miss", totalMissHistogram, duration);
+        appendTotals(builder, "error", totalErrorHistogram, duration);
+        writer.write(builder.toString());
     }
     
     /**
-    * Reporting DB storage. NOT thread safe.
+     * Returns the summary of the run. NOT thread safe. Must be called after {@link #reportTotals(Writer)}.
+     * 
+     * @return the summary
+     */
+    public RunResult getResult() {
+        Histogram operations = new Histogram(1, HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        for (WorkType type : WorkType.values()) {
+            operations.add(totalHistograms.get(type));
+        }
+        operations.add(totalMissHistogram);
+        return new RunResult(config.getName(),
+                             config.getSweepName(),
+                             config.getNumThreads(),
+                             toSeconds(endTime),
+                             operations.getTotalCount(),
+                             totalErrorHistogram.getTotalCount(),
+                             (double)operations.getValueAtPercentile(50d) / 1000d,
+                             (double)operations.getValueAtPercentile(99d) / 1000d);
+    }
+    
+    /**
+     * Appends a line with the latency distribution of an operation since the start.
+     * 
+     * @param builder
+     * @param name
+     * @param histogram
+     * @param duration in seconds
+     */
+    private void appendTotals(StringBuilder builder, String name, Histogram histogram, double duration) {
+        builder.append(config.getName()).append(";");
+        builder.append(config.getNumThreads()).append(";");
+        builder.append(name).append(";");
+        builder.append(histogram.getTotalCount()).append(";");
+        builder.append((int)((double)histogram.getTotalCount() / duration)).append(";");
+        builder.append(toMillis(histogram.getMean())).append(";");
+        builder.append(toMillis(histogram.getValueAtPercentile(50d))).append(";");
+        builder.append(toMillis(histogram.getValueAtPercentile(90d))).append(";");
+        builder.append(toMillis(histogram.getValueAtPercentile(99d))).append(";");
+        builder.append(toMillis(histogram.getValueAtPercentile(99.9d))).append(";");
+        builder.append(toMillis(histogram.getValueAtPercentile(99.99d))).append(";");
+        builder.append(toMillis(histogram.getMaxValue())).append("\n");
+    }
+    
+    /**
+     * Swaps the interval histograms and accumulates them into the totals.
+     */
+    private void swapIntervals() {
+        for (WorkType type : WorkType.values()) {
+            Histogram interval = recorders.get(type).getIntervalHistogram(intervalHistograms.get(type));
+            intervalHistograms.put(type, interval);
+            totalHistograms.get(type).add(interval);
+        }
+        intervalMissHistogram = missRecorder.getIntervalHistogram(intervalMissHistogram);
+        totalMissHistogram.add(intervalMissHistogram);
+        intervalErrorHistogram = errorRecorder.getIntervalHistogram(intervalErrorHistogram);
+        totalErrorHistogram.add(intervalErrorHistogram);
+    }
+    
+    /**
+     * Appends the header columns for the latencies of a type of work.
+     * 
+     * @param builder
+     * @param prefix
+     * @param name
+     */
+    private void appendLatencyHeader(StringBuilder builder, String prefix, String name) {
+        for (double percentile : PERCENTILES) {
+            builder.append(";").append(prefix).append("p").append(String.valueOf(percentile).replace(".0", "")).append(" ").append(name).append(" [ms]");
+        }
+        builder.append(";").append(prefix).append("max ").append(name).append(" [ms]");
+    }
+    
+    /**
+     * Appends the latency columns of a histogram.
+     * 
+     * @param builder
+     * @param histogram
+     */
+    private void appendLatencies(StringBuilder builder, Histogram histogram) {
+        for (double percentile : PERCENTILES) {
+            builder.append(";").append(toMillis(histogram.getValueAtPercentile(percentile)));
+        }
+        builder.append(";").append(toMillis(histogram.getMaxValue()));
+    }
+    
+    /**
+     * Returns the time elapsed since the start in seconds, with a precision of milliseconds.
+     * 
+     * @param time in nanoseconds
+     * @return the seconds since the start
+     */
+    private double toSeconds(long time) {
+        return toSeconds(time, startTime);
+    }
+    
+    /**
+     * Returns the time elapsed since a start in seconds, with a precision of milliseconds.
+     * 
+     * @param time in nanoseconds
+     * @param start in nanoseconds
+     * @return the seconds since the start
+     */
+    private double toSeconds(long time, long start) {
+        return (double) TimeUnit.NANOSECONDS.toMillis(time - start) / 1000d;
+    }
+    
+    /**
+     * Converts a latency in microseconds into milliseconds, formatted for the CSV output.
+     * 
+     * @param micros
+     * @return
+     */
+    private String toMillis(double micros) {
+        return String.valueOf((double)Math.round(micros) / 1000d).replace('.', ',');
+    }
+    
+    /**
+    * Reporting DB storage. NOT thread safe, but may run concurrently with {@link #report(Writer, Map)}.
     * 
     * @throws IOException 
      * @throws ConnectorException 
@@ -207,7 +888,8 @@ public class Statistics {
    public void reportDBStorage(Writer writer, WorkProvider provider) throws ConnectorException, IOException {
 	   
        // Collect data
-       long currentTime = System.currentTimeMillis();
+       long currentTime = System.nanoTime();
+       long start = startTime;
        
        String d = provider.getDBStorageMetrics("domain");
        String p = provider.getDBStorageMetrics("pseudonym");
@@ -237,7 +919,8 @@ public class Statistics {
        }
        
        // Print header
-       if (lastTimeDB == 0) {
+       if (!headerDB) {
+           headerDB = true;
            
            // Print parameters
            StringBuilder builder = new StringBuilder();
@@ -252,21 +935,21 @@ public class Statistics {
        
        // Print parameters
        StringBuilder builder = new StringBuilder();
-       builder.append(String.valueOf((double)(currentTime - startTime)/1000d).replace('.', ',')).append(";");
+       builder.append(String.valueOf(toSeconds(currentTime, start)).replace('.', ',')).append(";");
        builder.append("domain").append(";");
        builder.append(domainSize).append(";");
        builder.append(domainRecordCount).append(";");
        builder.append(domainBytesPerRecord).append(";");
        builder.append(domainDBSize).append("\n");
        
-       builder.append(String.valueOf((double)(currentTime - startTime)/1000d).replace('.', ',')).append(";");
+       builder.append(String.valueOf(toSeconds(currentTime, start)).replace('.', ',')).append(";");
        builder.append("pseudonym").append(";");
        builder.append(pseudonymSize).append(";");
        builder.append(pseudonymRecordCount).append(";");
        builder.append(pseudonymBytesPerRecord).append(";");
        builder.append(pseudonymDBSize).append("\n");
        
-       builder.append(String.valueOf((double)(currentTime - startTime)/1000d).replace('.', ',')).append(";");
+       builder.append(String.valueOf(toSeconds(currentTime, start)).replace('.', ',')).append(";");
        builder.append("auditevent").append(";");
        builder.append(auditeventSize).append(";");
        builder.append(auditeventRecordCount).append(";");
@@ -274,15 +957,84 @@ public class Statistics {
        builder.append(auditeventDBSize).append("\n");
        
        writer.write(builder.toString());
-       
-       // Store
-       this.lastTimeDB = currentTime;
    }
 
     /**
-     * Stores the start time.
+     * Stores the start time, which is also the start of the first interval.
      */
     public void start() {
-        this.startTime = System.currentTimeMillis();
+        this.startTime = System.nanoTime();
+        this.lastTime = this.startTime;
+    }
+    
+    /**
+     * Starts the warm-up phase. Everything recorded until {@link #endWarmup()} is discarded.
+     */
+    public void startWarmup() {
+        this.warmup = true;
+        this.start();
+    }
+    
+    /**
+     * Marks whether the statistics are in the warm-up phase without discarding anything. Used by agents,
+     * whose warm-up is ended by the coordinator, which discards the merged statistics. Thread safe.
+     * 
+     * @param warmup
+     */
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
+    }
+    
+    /**
+     * Ends the warm-up phase, discards everything recorded so far and starts the measurement. NOT thread safe,
+     * operations that complete concurrently may be counted without their latency or vice versa.
+     */
+    public void endWarmup() {
+        
+        // Discard counts
+        for (AtomicInteger counter : getCounters()) {
+            counter.set(0);
+        }
+        for (AtomicInteger counter : errors.values()) {
+            counter.set(0);
+        }
+        for (AtomicInteger counter : errorTypes.values()) {
+            counter.set(0);
+        }
+        batchRecords.set(0);
+        
+        // Discard latencies
+        for (WorkType type : WorkType.values()) {
+            recorders.get(type).reset();
+            totalHistograms.get(type).reset();
+        }
+        missRecorder.reset();
+        totalMissHistogram.reset();
+        errorRecorder.reset();
+        totalErrorHistogram.reset();
+        
+        // Start the first interval of the measurement
+        this.lastCreates = 0;
+        this.lastReads = 0;
+        this.lastUpdates = 0;
+        this.lastDeletes = 0;
+        this.lastPings = 0;
+        this.lastBatchCreates = 0;
+        this.lastBatchReads = 0;
+        this.lastBatchRecords = 0;
+        this.lastCRUDs = 0;
+        this.lastErrors = 0;
+        this.lastOffered = getOffered();
+        this.start();
+        this.warmup = false;
+    }
+    
+    /**
+     * Returns the number of operations completed so far, including failed operations. Thread safe.
+     * 
+     * @return the number of operations
+     */
+    public long getOperations() {
+        return (long) creates.get() + reads.get() + updates.get() + deletes.get() + pings.get() + batchCreates.get() + batchReads.get() + errorCount.get();
     }
 }
@@ -0,0 +1,240 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Results of a configuration executed with different numbers of threads. Summarizes throughput and
+ * latency per concurrency level and detects the saturation point (knee): the highest level after
+ * which adding threads no longer increases throughput noticeably, while latency rises.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class Sweep {
+    
+    /**
+     * Minimal scaling efficiency between two levels, below which throughput is considered to have
+     * stopped growing. The efficiency is the relative growth of throughput divided by the relative
+     * growth of concurrency, e.g. 0.1 if doubling the threads increases throughput by 10%.
+     */
+    private static final double MIN_SCALING_EFFICIENCY = 0.1d;
+    
+    /**
+     * Results of the runs with a given number of threads.
+     */
+    public static class Level {
+        
+        /** Number of threads. */
+        private final int numThreads;
+        
+        /** Results. */
+        private final List<RunResult> results = new ArrayList<>();
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param numThreads
+         */
+        private Level(int numThreads) {
+            this.numThreads = numThreads;
+        }
+        
+        /**
+         * Returns the number of threads.
+         * 
+         * @return
+         */
+        public int getNumThreads() {
+            return numThreads;
+        }
+        
+        /**
+         * Returns the mean throughput of the runs in operations per second.
+         * 
+         * @return
+         */
+        public double getThroughput() {
+            return results.stream().mapToDouble(RunResult::getThroughput).average().orElse(0d);
+        }
+        
+        /**
+         * Returns the mean 50th percentile latency of the runs in milliseconds.
+         * 
+         * @return
+         */
+        public double getP50() {
+            return results.stream().mapToDouble(RunResult::getP50).average().orElse(0d);
+        }
+        
+        /**
+         * Returns the mean 99th percentile latency of the runs in milliseconds.
+         * 
+         * @return
+         */
+        public double getP99() {
+            return results.stream().mapToDouble(RunResult::getP99).average().orElse(0d);
+        }
+        
+        /**
+         * Returns the mean error rate of the runs.
+         * 
+         * @return
+         */
+        public double getErrorRate() {
+            return results.stream().mapToDouble(RunResult::getErrorRate).average().orElse(0d);
+        }
+    }
+    
+    /** Name of the sweep. */
+    private final String name;
+    
+    /** Levels by number of threads. */
+    private final Map<Integer, Level> levels = new TreeMap<>();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param name
+     */
+    public Sweep(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Adds the result of a run.
+     * 
+     * @param result
+     */
+    public void add(RunResult result) {
+        levels.computeIfAbsent(result.getNumThreads(), Level::new).results.add(result);
+    }
+    
+    /**
+     * Returns the name of the sweep.
+     * 
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns whether runs with more than one number of threads have been added.
+     * 
+     * @return
+     */
+    public boolean isSweep() {
+        return levels.size() > 1;
+    }
+    
+    /**
+     * Returns the levels ordered by number of threads.
+     * 
+     * @return
+     */
+    public List<Level> getLevels() {
+        return new ArrayList<>(levels.values());
+    }
+    
+    /**
+     * Returns the saturation point, null if throughput still grows at the highest level.
+     * 
+     * @return the level at which the service saturates
+     */
+    public Level getKnee() {
+        List<Level> levels = getLevels();
+        for (int i = 0; i < levels.size() - 1; i++) {
+            Level current = levels.get(i);
+            Level next = levels.get(i + 1);
+            if (getScalingEfficiency(current, next) < MIN_SCALING_EFFICIENCY && next.getP99() > current.getP99()) {
+                return current;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Writes the summary of the sweep. NOT thread safe.
+     * 
+     * @param writer
+     * @throws IOException
+     */
+    public void report(Writer writer) throws IOException {
+        
+        // Print header
+        StringBuilder builder = new StringBuilder();
+        builder.append("Name").append(";");
+        builder.append("Threads").append(";");
+        builder.append("Runs").append(";");
+        builder.append("TPS").append(";");
+        builder.append("p50 [ms]").append(";");
+        builder.append("p99 [ms]").append(";");
+        builder.append("Error rate").append(";");
+        builder.append("Scaling efficiency").append(";");
+        builder.append("Knee").append("\n");
+        
+        // Print one line per level
+        List<Level> levels = getLevels();
+        Level knee = getKnee();
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            builder.append(name).append(";");
+            builder.append(level.getNumThreads()).append(";");
+            builder.append(level.results.size()).append(";");
+            builder.append((int) level.getThroughput()).append(";");
+            builder.append(format(level.getP50())).append(";");
+            builder.append(format(level.getP99())).append(";");
+            builder.append(format(level.getErrorRate())).append(";");
+            builder.append(i == 0 ? "" : format(getScalingEfficiency(levels.get(i - 1), level))).append(";");
+            builder.append(level == knee ? "x" : "").append("\n");
+        }
+        writer.write(builder.toString());
+    }
+    
+    /**
+     * Returns the relative growth of throughput divided by the relative growth of concurrency between two levels.
+     * 
+     * @param lower
+     * @param higher
+     * @return the scaling efficiency
+     */
+    private static double getScalingEfficiency(Level lower, Level higher) {
+        if (lower.getThroughput() == 0d) {
+            return 0d;
+        }
+        double throughputGrowth = higher.getThroughput() / lower.getThroughput() - 1d;
+        double concurrencyGrowth = (double) higher.getNumThreads() / (double) lower.getNumThreads() - 1d;
+        return throughputGrowth / concurrencyGrowth;
+    }
+    
+    /**
+     * Formats a number for the CSV output.
+     * 
+     * @param value
+     * @return
+     */
+    private static String format(double value) {
+        return String.valueOf((double) Math.round(value * 1000d) / 1000d).replace('.', ',');
+    }
+}
@@ -37,7 +37,9 @@ public class WorkDistribution {
         READ,
         UPDATE,
         DELETE,
-        PING
+        PING,
+        BATCH_CREATE,
+        BATCH_READ
     }
     
     /** Number of create operations. */
@@ -55,6 +57,12 @@ public class WorkDistribution {
     /** Number of create, read, update, delete, and ping operations. */
     private final int crudp;
     
+    /** Number of create, read, update, delete, ping, and batch create operations. */
+    private final int crudpb;
+    
+    /** Number of all operations. */
+    private final int all;
+    
     /**
      * Creates a new instance.
      * 
@@ -63,13 +71,17 @@ public class WorkDistribution {
      * @param updates
      * @param deletes
      * @param pings
+     * @param batchCreates
+     * @param batchReads
      */
-    public WorkDistribution(int creates, int reads, int updates, int deletes, int pings) {
+    public WorkDistribution(int creates, int reads, int updates, int deletes, int pings, int batchCreates, int batchReads) {
         this.c = creates;
         this.cr = creates + reads;
         this.cru = creates + reads + updates;
         this.crud = creates + reads + updates + deletes;
         this.crudp = creates + reads + updates + deletes + pings;
+        this.crudpb = creates + reads + updates + deletes + pings + batchCreates;
+        this.all = creates + reads + updates + deletes + pings + batchCreates + batchReads;
     }
     
     /**
@@ -78,7 +90,7 @@ public class WorkDistribution {
      * @return a work type
      */
     public WorkType sample() {
-        int number = RANDOM.nextInt(crudp);
+        int number = RANDOM.nextInt(all);
         
         if (number < c) {
             return WorkType.CREATE;
@@ -88,8 +100,12 @@ public class WorkDistribution {
             return WorkType.UPDATE;
         } else if (number < crud) {
             return WorkType.DELETE;
-        } else {
+        } else if (number < crudp) {
         	return WorkType.PING;
+        } else if (number < crudpb) {
+            return WorkType.BATCH_CREATE;
+        } else {
+            return WorkType.BATCH_READ;
         }
     }
 }
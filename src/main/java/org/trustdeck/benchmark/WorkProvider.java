@@ -17,8 +17,18 @@
 
 package org.trustdeck.benchmark;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.trustdeck.benchmark.WorkDistribution.WorkType;
 import org.trustdeck.benchmark.connector.Connector;
 import org.trustdeck.benchmark.connector.ConnectorException;
+import org.trustdeck.benchmark.connector.ConnectorException.ErrorType;
 
 /**
  * Class that provides the work for the worker threads.
@@ -42,6 +52,47 @@ public class WorkProvider {
     /** The connector. */
     private Connector connector;
     
+    /** Number of work items that have been started but are not yet done. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    /** Recorder of samples, null if no samples are recorded. */
+    private SampleRecorder samples;
+    
+    /**
+     * A work item and what is needed to record its sample.
+     */
+    private static class Work {
+        
+        /** Type of work. */
+        private final WorkType type;
+        
+        /** Intended start time in nanoseconds, from which latency is measured. */
+        private final long start;
+        
+        /** Actual start time in nanoseconds. */
+        private final long started;
+        
+        /** The worker. */
+        private final int worker;
+        
+        /** Key accessed, the first key of batches. */
+        private long key = SampleRecorder.NO_KEY;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param type
+         * @param start
+         * @param worker
+         */
+        private Work(WorkType type, long start, int worker) {
+            this.type = type;
+            this.start = start;
+            this.started = System.nanoTime();
+            this.worker = worker;
+        }
+    }
+    
     /**
      * Creates a new instance.
      * 
@@ -61,7 +112,9 @@ public class WorkProvider {
                                                  config.getReadRate(),
                                                  config.getUpdateRate(),
                                                  config.getDeleteRate(),
-                                                 config.getPingRate());
+                                                 config.getPingRate(),
+                                                 config.getBatchCreateRate(),
+                                                 config.getBatchReadRate());
         
     }
     
@@ -74,9 +127,33 @@ public class WorkProvider {
     public void prepare(Connector connector) throws ConnectorException {
         this.connector = connector;
         this.connector.prepare();
-        for (int i = 0; i < config.getInitialDBSize(); i++) {
-            this.connector.createPseudonym(identifiers.create());
-        }
+    }
+    
+    /**
+     * Uses a connector that has been prepared by another driver.
+     * 
+     * @param connector
+     */
+    public void setConnector(Connector connector) {
+        this.connector = connector;
+    }
+    
+    /**
+     * Create the initial records. Must be called after {@link #prepare(Connector)}.
+     * 
+     * @throws ConnectorException
+     */
+    public void preload() throws ConnectorException {
+        new Preloader(this.connector, this.identifiers, this.config).run();
+    }
+    
+    /**
+     * Records a sample of each request with the given recorder.
+     * 
+     * @param samples the recorder or null to record no samples
+     */
+    public void setSampleRecorder(SampleRecorder samples) {
+        this.samples = samples;
     }
     
     /**
@@ -91,75 +168,287 @@ public class WorkProvider {
     }
     
     /**
-     * Returns the next work item.
+     * Get live gauges of the connector.
+     * 
+     * @return the gauges by name
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("Live keys", identifiers.getLiveKeys());
+        gauges.put("In flight", (long) inFlight.get());
+        gauges.putAll(this.connector.getGauges());
+        return gauges;
+    }
+    
+    /**
+     * Returns the number of work items that have been started but are not yet done. Thread safe.
      * 
+     * @return the number of work items in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * Returns the next work item. Failures of the work are recorded as errors and do not escape.
+     * 
+     * @param start the (intended) start time of the work in nanoseconds, from which latency is measured
+     * @param worker the worker performing the work
      * @return the work
      */
-    public Runnable getWork() {
-        
-        // Get the template according to the defined distribution
-        switch(distribution.sample()) {
-	        case CREATE:
-	            return new Runnable() {
-	                @Override
-	                public void run() {
-	                    try {
-                            connector.createPseudonym(identifiers.create());
-                        } catch (ConnectorException e) {
-                            throw new RuntimeException(e);
-                        }
-	                    statistics.addCreate();
-	                }
-	            };
-	        case READ:
-	            return new Runnable() {
-	                @Override
-	                public void run() {
-	                    try {
-                            connector.readPseudonym(identifiers.read());
-                        } catch (ConnectorException e) {
-                            throw new RuntimeException(e);
-                        }
-	                    statistics.addRead();
-	                }
-	            };
-	        case UPDATE:
-	            return new Runnable() {
-	                @Override
-	                public void run() {
-	                    try {
-                            connector.updatePseudonym(identifiers.read());
-                        } catch (ConnectorException e) {
-                            throw new RuntimeException(e);
-                        }
-	                    statistics.addUpdate();
-	                }
-	            };
-	        case DELETE:
-	            return new Runnable() {
-	                @Override
-	                public void run() {
-	                    try {
-                            connector.deletePseudonym(identifiers.read());
-                        } catch (ConnectorException e) {
-                            throw new RuntimeException(e);
-                        }
-	                    statistics.addDelete();
-	                }
-	            };
-	        case PING:
-	            return new Runnable() {
-	                @Override
-	                public void run() {
-	                    try {
-                            connector.ping();
-                        } catch (ConnectorException e) {
-                            throw new RuntimeException(e);
-                        }
-                        statistics.addPing();
-	                }
-	            };
-	    };
+    public Runnable getWork(final long start, final int worker) {
+        
+        // Get the type according to the defined distribution
+        final WorkType type = distribution.sample();
+        return new Runnable() {
+            @Override
+            public void run() {
+                inFlight.incrementAndGet();
+                Work work = new Work(type, start, worker);
+                try {
+                    perform(work);
+                } catch (Exception e) {
+                    failed(work, e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Performs work and records it.
+     * 
+     * @param work the work
+     * @throws ConnectorException
+     */
+    private void perform(Work work) throws ConnectorException {
+        
+        switch(work.type) {
+            case CREATE:
+                long createKey = work.key = identifiers.create();
+                connector.createPseudonym(identifiers.format(createKey));
+                statistics.addCreate(done(work, true));
+                identifiers.created(createKey);
+                return;
+            case READ:
+                boolean read = connector.readPseudonym(identifiers.format(work.key = identifiers.read()));
+                statistics.addRead(done(work, read), read);
+                return;
+            case UPDATE:
+                boolean updated = connector.updatePseudonym(identifiers.format(work.key = identifiers.read()));
+                statistics.addUpdate(done(work, updated), updated);
+                return;
+            case DELETE:
+                // Remove the key first, so that concurrent work does not target it
+                long deleteKey = work.key = identifiers.read();
+                boolean wasLive = identifiers.deleted(deleteKey);
+                boolean deleted;
+                try {
+                    deleted = connector.deletePseudonym(identifiers.format(deleteKey));
+                } catch (ConnectorException | RuntimeException e) {
+                    // The key still exists if the request failed
+                    if (wasLive) {
+                        identifiers.created(deleteKey);
+                    }
+                    throw e;
+                }
+                statistics.addDelete(done(work, deleted), deleted);
+                return;
+            case PING:
+                connector.ping();
+                statistics.addPing(done(work, true));
+                return;
+            case BATCH_CREATE:
+                long[] createKeys = createKeys();
+                work.key = createKeys[0];
+                connector.createPseudonymBatch(format(createKeys));
+                statistics.addBatchCreate(done(work, true), createKeys.length);
+                created(createKeys);
+                return;
+            case BATCH_READ:
+                long[] readKeys = readKeys();
+                work.key = readKeys[0];
+                connector.readPseudonymBatch(format(readKeys));
+                statistics.addBatchRead(done(work, true), readKeys.length);
+                return;
+        }
+        
+        // Sanity check
+        throw new IllegalStateException("No work can be provided.");
+    }
+    
+    /**
+     * Completes work and records its sample.
+     * 
+     * @param work the work
+     * @param found whether the pseudonym targeted was found
+     * @return the latency in nanoseconds
+     */
+    private long done(Work work, boolean found) {
+        long latency = System.nanoTime() - work.start;
+        record(work, latency, found ? SampleRecorder.STATUS_OK : SampleRecorder.STATUS_MISS);
+        return latency;
+    }
+    
+    /**
+     * Records failed work.
+     * 
+     * @param work the work
+     * @param error the cause
+     */
+    private void failed(Work work, Throwable error) {
+        long latency = System.nanoTime() - work.start;
+        ErrorType type = ConnectorException.classify(error);
+        record(work, latency, SampleRecorder.status(type));
+        statistics.addError(work.type, type, latency);
+    }
+    
+    /**
+     * Records the sample of work, if samples are recorded.
+     * 
+     * @param work the work
+     * @param latency the latency in nanoseconds
+     * @param status the status
+     */
+    private void record(Work work, long latency, int status) {
+        if (samples != null) {
+            samples.record(work.started, work.start, latency, work.type, status, work.worker, work.key, statistics.isWarmup());
+        }
+    }
+    
+    /**
+     * Creates the keys for a batch.
+     * 
+     * @return the new keys
+     */
+    private long[] createKeys() {
+        long[] keys = new long[config.getBatchSize()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = identifiers.create();
+        }
+        return keys;
+    }
+    
+    /**
+     * Samples existing keys for a batch.
+     * 
+     * @return the keys
+     */
+    private long[] readKeys() {
+        long[] keys = new long[config.getBatchSize()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = identifiers.read();
+        }
+        return keys;
+    }
+    
+    /**
+     * Formats keys into identifiers.
+     * 
+     * @param keys
+     * @return the identifiers
+     */
+    private List<String> format(long[] keys) {
+        List<String> ids = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            ids.add(identifiers.format(key));
+        }
+        return ids;
+    }
+    
+    /**
+     * Marks keys as created.
+     * 
+     * @param keys
+     */
+    private void created(long[] keys) {
+        for (long key : keys) {
+            identifiers.created(key);
+        }
+    }
+    
+    /**
+     * Issues the next work item asynchronously. Failures of the work are recorded as errors,
+     * so that the returned stage always completes normally.
+     * 
+     * @param start the (intended) start time of the work in nanoseconds, from which latency is measured
+     * @param worker the worker issuing the work
+     * @return a stage that completes when the work is done and has been recorded
+     */
+    public CompletionStage<Void> submitWork(final long start, final int worker) {
+        
+        // Get the type according to the defined distribution
+        final Work work = new Work(distribution.sample(), start, worker);
+        CompletionStage<Void> stage;
+        inFlight.incrementAndGet();
+        try {
+            stage = issue(work);
+        } catch (RuntimeException e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        
+        // Record failures
+        return stage.handle((result, error) -> {
+            if (error != null) {
+                failed(work, error);
+            }
+            inFlight.decrementAndGet();
+            return null;
+        });
+    }
+    
+    /**
+     * Issues work asynchronously.
+     * 
+     * @param work the work
+     * @return a stage that completes when the work is done and has been recorded
+     */
+    private CompletionStage<Void> issue(final Work work) {
+        
+        switch(work.type) {
+            case CREATE:
+                final long createKey = work.key = identifiers.create();
+                return connector.createPseudonymAsync(identifiers.format(createKey))
+                                .thenRun(() -> {
+                                    statistics.addCreate(done(work, true));
+                                    identifiers.created(createKey);
+                                });
+            case READ:
+                return connector.readPseudonymAsync(identifiers.format(work.key = identifiers.read()))
+                                .thenAccept(found -> statistics.addRead(done(work, found), found));
+            case UPDATE:
+                return connector.updatePseudonymAsync(identifiers.format(work.key = identifiers.read()))
+                                .thenAccept(found -> statistics.addUpdate(done(work, found), found));
+            case DELETE:
+                // Remove the key first, so that concurrent work does not target it
+                final long deleteKey = work.key = identifiers.read();
+                final boolean wasLive = identifiers.deleted(deleteKey);
+                return connector.deletePseudonymAsync(identifiers.format(deleteKey))
+                                .whenComplete((found, error) -> {
+                                    // The key still exists if the request failed
+                                    if (error != null && wasLive) {
+                                        identifiers.created(deleteKey);
+                                    }
+                                })
+                                .thenAccept(found -> statistics.addDelete(done(work, found), found));
+            case PING:
+                return connector.pingAsync()
+                                .thenRun(() -> statistics.addPing(done(work, true)));
+            case BATCH_CREATE:
+                final long[] created = createKeys();
+                work.key = created[0];
+                return connector.createPseudonymBatchAsync(format(created))
+                                .thenRun(() -> {
+                                    statistics.addBatchCreate(done(work, true), created.length);
+                                    created(created);
+                                });
+            case BATCH_READ:
+                final long[] read = readKeys();
+                work.key = read[0];
+                return connector.readPseudonymBatchAsync(format(read))
+                                .thenRun(() -> statistics.addBatchRead(done(work, true), read.length));
+        };
         
         // Sanity check
         throw new IllegalStateException("No work can be provided.");
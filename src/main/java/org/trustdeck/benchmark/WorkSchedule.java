@@ -0,0 +1,131 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands out the start times of work items to the workers. In closed-loop mode (target rate of zero)
+ * each work item starts as soon as a worker is available. In open-loop mode work items are scheduled
+ * at a constant arrival rate, independent of how fast the service responds. Latencies are then measured
+ * from the intended start time, so that a slow service cannot hide its queueing delay by slowing
+ * down the driver (coordinated omission).
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class WorkSchedule {
+    
+    /** Nanoseconds per second. */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    
+    /** Maximal time to park at once in nanoseconds, so that waiting workers notice when the schedule is stopped. */
+    private static final long MAX_PARK_NANOS = 10000000L;
+    
+    /** Target rate in requests per second, zero for closed-loop mode. */
+    private final int targetRate;
+    
+    /** Number of work items handed out so far. */
+    private final AtomicLong tickets = new AtomicLong();
+    
+    /** Start of the schedule in nanoseconds. */
+    private volatile long startTime;
+    
+    /** Whether the schedule has been stopped. */
+    private volatile boolean stopped;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param targetRate the target rate in requests per second or zero for closed-loop mode
+     */
+    public WorkSchedule(int targetRate) {
+        this.targetRate = targetRate;
+    }
+    
+    /**
+     * Starts the schedule.
+     */
+    public void start() {
+        this.startTime = System.nanoTime();
+    }
+    
+    /**
+     * Stops the schedule. Workers finish their current work item and then terminate.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+    
+    /**
+     * Returns whether the schedule has been stopped.
+     * 
+     * @return
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+    
+    /**
+     * Returns whether the schedule works in open-loop mode.
+     * 
+     * @return
+     */
+    public boolean isOpenLoop() {
+        return targetRate > 0;
+    }
+    
+    /**
+     * Returns the start time of the next work item. In open-loop mode this blocks until the
+     * intended start time has been reached. If the workers fall behind the schedule, the
+     * intended start time lies in the past and is returned immediately. Returns early if the
+     * schedule is stopped while waiting. Thread safe.
+     * 
+     * @return the (intended) start time of the next work item in nanoseconds
+     */
+    public long next() {
+        
+        // Closed loop
+        long ticket = tickets.getAndIncrement();
+        if (!isOpenLoop()) {
+            return System.nanoTime();
+        }
+        
+        // Open loop: wait for the intended start time
+        long intended = startTime + (ticket / targetRate) * NANOS_PER_SECOND + (ticket % targetRate) * NANOS_PER_SECOND / targetRate;
+        long now = System.nanoTime();
+        while (now < intended && !stopped) {
+            LockSupport.parkNanos(Math.min(intended - now, MAX_PARK_NANOS));
+            now = System.nanoTime();
+        }
+        return intended;
+    }
+    
+    /**
+     * Returns the number of work items offered so far. In open-loop mode these are all items whose
+     * intended start time has passed, in closed-loop mode all items handed out to workers. Thread safe.
+     * 
+     * @return the offered number of work items
+     */
+    public long getOffered() {
+        if (!isOpenLoop()) {
+            return tickets.get();
+        }
+        return (long)((double)(System.nanoTime() - startTime) / (double)NANOS_PER_SECOND * (double)targetRate);
+    }
+}
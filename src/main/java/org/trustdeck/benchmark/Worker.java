@@ -17,44 +17,108 @@
 
 package org.trustdeck.benchmark;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.trustdeck.benchmark.Configuration.ExecutionMode;
+
 /**
- * This class represents a thread that performs dedicated work.
+ * This class represents a worker that performs dedicated work. Workers run either
+ * on platform threads or on virtual threads, see {@link #createThreadFactory(ExecutionMode)}.
  * 
  * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
  */
-public class Worker extends Thread {
+public class Worker implements Runnable {
     
     /** Work provider. */
     private WorkProvider provider;
     
+    /** Schedule of the work. */
+    private WorkSchedule schedule;
+    
+    /** Statistics, which track the number of active workers. */
+    private Statistics statistics;
+    
+    /** Number of the worker. */
+    private int id;
+    
     /**
-     * Creates a new instance.
+     * Creates a new instance. The worker runs until the schedule is stopped or its thread is interrupted.
      * 
-     * @param authentication
-     * @param service
      * @param provider
+     * @param schedule
+     * @param statistics
+     * @param id the number of the worker
      */
-    public Worker(WorkProvider provider) {
+    public Worker(WorkProvider provider, WorkSchedule schedule, Statistics statistics, int id) {
         this.provider = provider;
-        this.setDaemon(true);
+        this.schedule = schedule;
+        this.statistics = statistics;
+        this.id = id;
+    }
+    
+    /**
+     * Creates a factory for the threads that run the workers. Virtual threads require Java 21 or
+     * higher at runtime. They are created reflectively, so that the driver can still be built for
+     * and run on Java 17 in platform mode.
+     * 
+     * @param mode the execution mode
+     * @return the thread factory
+     */
+    public static ThreadFactory createThreadFactory(ExecutionMode mode) {
+        switch (mode) {
+            case PLATFORM:
+            case ASYNC:
+                final AtomicInteger counter = new AtomicInteger();
+                return new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "worker-" + counter.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                };
+            case VIRTUAL:
+                try {
+                    Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                    Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                    Method name = builderClass.getMethod("name", String.class, long.class);
+                    builder = name.invoke(builder, "virtual-worker-", 0L);
+                    return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Virtual threads require Java 21 or higher", e);
+                }
+            default:
+                throw new IllegalStateException("Unknown execution mode: " + mode);
+        }
     }
     
     @Override
     public void run() {
         
-        // Do forever
-        while (true) {
-            
-            // Next work package
-            Runnable work = this.provider.getWork();
-            
-            // Perform work
-            work.run();
-            
-            // See if it's time to stop
-            if (Thread.interrupted()) {
-                return;
+        // Do forever, failures of the work are recorded by the work itself
+        this.statistics.workerStarted();
+        try {
+            while (true) {
+                
+                // Next work package, waits for its start time in open-loop mode
+                long start = this.schedule.next();
+                if (this.schedule.isStopped()) {
+                    return;
+                }
+                Runnable work = this.provider.getWork(start, this.id);
+                
+                // Perform work
+                work.run();
+                
+                // See if it's time to stop
+                if (this.schedule.isStopped() || Thread.interrupted()) {
+                    return;
+                }
             }
+        } finally {
+            this.statistics.workerStopped();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.trustdeck.benchmark.Configuration.ExecutionMode;
+
+/**
+ * The workers of a configuration, running on an executor of their own.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class WorkerPool {
+    
+    /** The configuration. */
+    private final Configuration config;
+    
+    /** Work provider. */
+    private final WorkProvider provider;
+    
+    /** Schedule of the work. */
+    private final WorkSchedule schedule;
+    
+    /** Statistics. */
+    private final Statistics statistics;
+    
+    /** Executor running the workers. */
+    private ExecutorService workers;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param config
+     * @param provider
+     * @param schedule
+     * @param statistics
+     */
+    public WorkerPool(Configuration config, WorkProvider provider, WorkSchedule schedule, Statistics statistics) {
+        this.config = config;
+        this.provider = provider;
+        this.schedule = schedule;
+        this.statistics = statistics;
+    }
+    
+    /**
+     * Starts the workers.
+     */
+    public void start() {
+        workers = Executors.newFixedThreadPool(config.getNumThreads(), Worker.createThreadFactory(config.getExecutionMode()));
+        for (int i = 0; i < config.getNumThreads(); i++) {
+            Runnable worker = config.getExecutionMode() == ExecutionMode.ASYNC ? new AsyncWorker(provider, schedule, statistics, config.getMaxInFlight(), i) : new Worker(provider, schedule, statistics, i);
+            workers.execute(worker);
+        }
+        workers.shutdown();
+    }
+    
+    /**
+     * Stops the schedule, waits for the workers to terminate and for the work in flight to complete.
+     * Workers that are still running after the drain time are interrupted.
+     * 
+     * @return the number of requests still in flight after the drain time
+     */
+    public int stop() {
+        
+        schedule.stop();
+        long deadline = System.currentTimeMillis() + config.getDrainTime();
+        try {
+            
+            // Wait for the workers
+            workers.awaitTermination(config.getDrainTime(), TimeUnit.MILLISECONDS);
+            
+            // Wait for asynchronous work
+            while (provider.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Interrupt remaining workers
+        if (!workers.isTerminated()) {
+            workers.shutdownNow();
+        }
+        return provider.getInFlight();
+    }
+}
@@ -16,6 +16,10 @@
  */
 package org.trustdeck.benchmark.connector;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Connector interface
  * @author Fabian Prasser
@@ -31,15 +35,48 @@ public interface Connector {
     /** Retrieve storage consumption*/
     public String getStorageConsumption(String storageID) throws ConnectorException;
     
-    /** Read pseudonym*/
-    public void readPseudonym(String string) throws ConnectorException;
+    /** Read pseudonym. Returns whether it was found*/
+    public boolean readPseudonym(String string) throws ConnectorException;
     
-    /** Update pseudonym*/
-    public void updatePseudonym(String string) throws ConnectorException;
+    /** Update pseudonym. Returns whether it was found*/
+    public boolean updatePseudonym(String string) throws ConnectorException;
     
-    /** Delete pseudonym*/
-    public void deletePseudonym(String string) throws ConnectorException;
+    /** Delete pseudonym. Returns whether it was found*/
+    public boolean deletePseudonym(String string) throws ConnectorException;
     
     /** Ping the service*/
     public void ping() throws ConnectorException;
+    
+    /** Create pseudonyms in batches*/
+    public void createPseudonymBatch(List<String> ids) throws ConnectorException;
+    
+    /** Read pseudonyms in batches*/
+    public void readPseudonymBatch(List<String> ids) throws ConnectorException;
+    
+    /** Live gauges of the connector, e.g. of its connection pool, by name*/
+    public Map<String, Long> getGauges();
+    
+    /** Create pseudonym asynchronously. Completes exceptionally with a ConnectorException*/
+    public CompletionStage<Void> createPseudonymAsync(String id);
+    
+    /** Read pseudonym asynchronously. Completes with whether it was found or exceptionally with a ConnectorException*/
+    public CompletionStage<Boolean> readPseudonymAsync(String id);
+    
+    /** Update pseudonym asynchronously. Completes with whether it was found or exceptionally with a ConnectorException*/
+    public CompletionStage<Boolean> updatePseudonymAsync(String id);
+    
+    /** Delete pseudonym asynchronously. Completes with whether it was found or exceptionally with a ConnectorException*/
+    public CompletionStage<Boolean> deletePseudonymAsync(String id);
+    
+    /** Ping the service asynchronously. Completes exceptionally with a ConnectorException*/
+    public CompletionStage<Void> pingAsync();
+    
+    /** Create pseudonyms in batches asynchronously. Completes exceptionally with a ConnectorException*/
+    public CompletionStage<Void> createPseudonymBatchAsync(List<String> ids);
+    
+    /** Read pseudonyms in batches asynchronously. Completes exceptionally with a ConnectorException*/
+    public CompletionStage<Void> readPseudonymBatchAsync(List<String> ids);
+    
+    /** Release the resources of the connector, e.g. background threads*/
+    public void close();
 }
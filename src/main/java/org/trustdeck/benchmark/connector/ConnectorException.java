@@ -16,17 +16,106 @@
  */
 package org.trustdeck.benchmark.connector;
 
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Connector exception
  */
 public class ConnectorException extends Exception {
+    
+    /**
+     * Types of errors.
+     */
+    public static enum ErrorType {
+        CLIENT_ERROR,
+        SERVER_ERROR,
+        TIMEOUT,
+        CONNECTION,
+        OTHER
+    }
+    
+    /** Status code of the response, zero if there was none. */
+    private final int statusCode;
+    
+    /** Type of error. */
+    private final ErrorType type;
 
     /**
      * New instance
      * @param e
      */
     public ConnectorException(Exception e) {
-        super(e);
+        this(e, 0);
+    }
+
+    /**
+     * New instance
+     * @param t
+     */
+    public ConnectorException(Throwable t) {
+        this(t, 0);
+    }
+
+    /**
+     * New instance
+     * @param t
+     * @param statusCode the status code of the response, zero if there was none
+     */
+    public ConnectorException(Throwable t, int statusCode) {
+        super(t);
+        this.statusCode = statusCode;
+        if (statusCode >= 500) {
+            this.type = ErrorType.SERVER_ERROR;
+        } else if (statusCode >= 400) {
+            this.type = ErrorType.CLIENT_ERROR;
+        } else {
+            this.type = classify(t);
+        }
+    }
+    
+    /**
+     * Classifies an error without a status code by its causes.
+     * 
+     * @param t
+     * @return the type of error
+     */
+    public static ErrorType classify(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectorException) {
+                return ((ConnectorException) cause).getType();
+            } else if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException ||
+                       cause instanceof UnknownHostException || cause instanceof NoRouteToHostException ||
+                       cause instanceof SocketException) {
+                return ErrorType.CONNECTION;
+            } else if (cause instanceof InterruptedIOException || cause instanceof HttpTimeoutException ||
+                       cause instanceof TimeoutException) {
+                return ErrorType.TIMEOUT;
+            }
+        }
+        return ErrorType.OTHER;
+    }
+    
+    /**
+     * Returns the status code of the response, zero if there was none.
+     * @return
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * Returns the type of error.
+     * @return
+     */
+    public ErrorType getType() {
+        return type;
     }
 
     /** SVUID */
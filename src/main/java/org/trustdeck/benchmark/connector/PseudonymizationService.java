@@ -17,6 +17,9 @@
 package org.trustdeck.benchmark.connector;
 
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
 import org.trustdeck.benchmark.connector.ace.HTTPException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
@@ -159,4 +162,115 @@ public interface PseudonymizationService<S extends Token<?>, T extends Domain, U
      */
     void ping(S token) throws URISyntaxException, HTTPException, JsonProcessingException;
 
+    /**
+     * Create pseudonym asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    CompletionStage<String> createPseudonymAsync(S token, T domain, U pseudonym) throws URISyntaxException,
+                                                                                         JsonProcessingException;
+
+    /**
+     * Read pseudonym asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    CompletionStage<String> readPseudonymAsync(S token, T domain, U pseudonym) throws URISyntaxException;
+
+    /**
+     * Update pseudonym asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    CompletionStage<String> updatePseudonymAsync(S token, T domain, U pseudonym) throws URISyntaxException,
+                                                                                         JsonProcessingException;
+
+    /**
+     * Delete pseudonym asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    CompletionStage<String> deletePseudonymAsync(S token, T domain, U pseudonym) throws URISyntaxException;
+
+    /**
+     * Ping asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    CompletionStage<String> pingAsync(S token) throws URISyntaxException;
+
+    /**
+     * Create pseudonyms in batches.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @throws URISyntaxException
+     * @throws HTTPException
+     * @throws JsonProcessingException
+     */
+    void createPseudonymBatch(S token, T domain, List<U> pseudonyms) throws URISyntaxException,
+                                                                              HTTPException,
+                                                                              JsonProcessingException;
+
+    /**
+     * Read pseudonyms in batches.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @throws URISyntaxException
+     * @throws HTTPException
+     * @throws JsonProcessingException
+     */
+    void readPseudonymBatch(S token, T domain, List<U> pseudonyms) throws URISyntaxException,
+                                                                            HTTPException,
+                                                                            JsonProcessingException;
+
+    /**
+     * Create pseudonyms in batches asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the stage completing when all batches are done
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    CompletionStage<String> createPseudonymBatchAsync(S token, T domain, List<U> pseudonyms) throws URISyntaxException,
+                                                                                                     JsonProcessingException;
+
+    /**
+     * Read pseudonyms in batches asynchronously. HTTP errors are reported through the returned stage.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the stage completing when all batches are done
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    CompletionStage<String> readPseudonymBatchAsync(S token, T domain, List<U> pseudonyms) throws URISyntaxException,
+                                                                                                   JsonProcessingException;
+
 }
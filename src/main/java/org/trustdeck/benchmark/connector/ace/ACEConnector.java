@@ -19,11 +19,19 @@ package org.trustdeck.benchmark.connector.ace;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import org.trustdeck.benchmark.Main;
 import org.trustdeck.benchmark.connector.Connector;
 import org.trustdeck.benchmark.connector.ConnectorException;
+import org.trustdeck.benchmark.connector.ace.ACEService.BodyEncoding;
+import org.trustdeck.benchmark.connector.ace.HTTPTransport.HTTPTransportType;
 import org.yaml.snakeyaml.Yaml;
 
 /**
@@ -45,20 +53,11 @@ public class ACEConnector implements Connector{
     /** Default start time for the pseudonym's validity period. */
     private static final String DEFAULT_PSEUDONYM_VALID_FROM = "2001-01-01T18:00:00";
     
-    /** Token lifetime. */
-    private static final long DEFAULT_TOKEN_LIFETIME = 290000;
-
     /** ACE service. */
     private ACEService service;
     
-    /** Authentication. */
-    private KeycloakAuthentication authentication;
-    
-    /** Access token. */
-    private ACEToken token;
-    
-    /** To track token validity. */
-    private long lastAuthenticated;
+    /** Access token, refreshed in the background. */
+    private TokenHolder tokens;
     
     /** Domain to use for the benchmarking in ACE. */
     private ACEDomain domain;
@@ -76,64 +75,66 @@ public class ACEConnector implements Connector{
         InputStream inputStream = Main.class.getClassLoader().getResourceAsStream("config.yaml");
         Map<String, Object> yamlConfig = yaml.load(inputStream);
         Map<String, String> toolConfig = (Map<String, String>) yamlConfig.get("ace");
+        
+        // Send the requests to the embedded stand-in instead, if configured
+        String serviceURI = toolConfig.get("uri");
+        String authenticationURI = toolConfig.get("keycloakAuthUri");
+        if (toolConfig.containsKey("standIn")) {
+            ACEStandInSettings standIn = new ACEStandInSettings((Map<String, Object>) ((Map<String, ?>) toolConfig).get("standIn"));
+            serviceURI = standIn.getServiceURI();
+            authenticationURI = standIn.getAuthenticationURI();
+        }
  
         // Authentication
-        this.authentication = new KeycloakAuthentication()
+        this.tokens = new TokenHolder(new KeycloakAuthentication()
                 .setClientId(toolConfig.get("clientId"))
                 .setClientSecret(toolConfig.get("clientSecret"))
-                .setKeycloakAuthenticationURI(toolConfig.get("keycloakAuthUri"))
+                .setKeycloakAuthenticationURI(authenticationURI)
                 .setKeycloakRealmName(toolConfig.get("keycloakRealmName"))
                 .setUsername(toolConfig.get("username"))
-                .setPassword(toolConfig.get("password"));
+                .setPassword(toolConfig.get("password")));
+        
+        // Configure connection pool and select transport
+        ClientManager.setConnectionPoolSettings(new ConnectionPoolSettings((Map<String, Object>) ((Map<String, ?>) toolConfig).get("pool")));
+        if (toolConfig.containsKey("transport")) {
+            ClientManager.setDefaultTransportType(HTTPTransportType.valueOf(toolConfig.get("transport").toUpperCase()));
+        }
         
         // Instantiate service
-        this.service = new ACEService(new URI(toolConfig.get("uri")));
+        Object maxBatchSize = ((Map<String, ?>) toolConfig).get("maxBatchSize");
+        BodyEncoding bodyEncoding = toolConfig.containsKey("bodyEncoding") ? BodyEncoding.valueOf(toolConfig.get("bodyEncoding").toUpperCase()) : BodyEncoding.TEMPLATE;
+        this.service = new ACEService(new URI(serviceURI), maxBatchSize != null ? (int) maxBatchSize : ACEService.DEFAULT_MAX_BATCH_SIZE, bodyEncoding);
         
         // Prepare domain
         this.domain = new ACEDomain((String) toolConfig.get("domainName"), DEFAULT_DOMAIN_PREFIX);
         this.domain.setValidFrom(DEFAULT_DOMAIN_VALID_FROM);
     }
     
-    /**
-     * Authentication mechanism. Retrieves a new token or refreshes an existing one. 
-     */
-    private void authenticate() {
-
-        // Retrieve an access token
-        if (this.token == null) {
-            this.token = new ACEToken(authentication.authenticate());
-            this.lastAuthenticated = System.currentTimeMillis();
-            
-        // Refresh token
-        } else if (System.currentTimeMillis() - lastAuthenticated > DEFAULT_TOKEN_LIFETIME) {
-            this.token = new ACEToken(authentication.refreshToken());
-            this.lastAuthenticated = System.currentTimeMillis();
-        }
-    }
-    
     /**
      * Prepare for benchmark.
-     * Authenticate and remove old data.
+     * Remove old data and create the domain.
      */
     public void prepare() throws ConnectorException {
         try {
-            // Authenticate
-            authenticate();
-    
             // Remove old data from ACE
             try {
-                service.clearTables(this.token);
+                service.clearTables(tokens.getToken());
             } catch (HTTPException e) {
                 // Ignore
             }
     
-            // Refresh access token (since the old-data-removal can take a while) and create the domain
-            authenticate();
-            service.createDomain(this.token, this.domain);
+            // Create the domain, it is ok if it already exists
+            try {
+                service.createDomain(tokens.getToken(), this.domain);
+            } catch (HTTPException e) {
+                if (e.getStatusCode() != 409) {
+                    throw e;
+                }
+            }
             
         // Catch and forward errors
         } catch (Exception e) {
-            throw new ConnectorException(e);
+            throw error(e);
         }
     }
     
@@ -144,12 +145,11 @@ public class ACEConnector implements Connector{
      */
     public void createPseudonym(String id) throws ConnectorException {
         try {
-            authenticate();
-            service.createPseudonym(this.token, this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
+            service.createPseudonym(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
             
         // Catch and forward errors
         } catch (Exception e) {
-            throw new ConnectorException(e);
+            throw error(e);
         }
     }
     
@@ -161,13 +161,10 @@ public class ACEConnector implements Connector{
      */
     public String getStorageConsumption(String storageIdentifier) throws ConnectorException {
         try {
-            // Authenticate
-            authenticate();
-
             // Gather storage information
             String response = "";
             try {
-                response = service.getStorage(token, storageIdentifier);
+                response = service.getStorage(tokens.getToken(), storageIdentifier);
             } catch (HTTPException e) {
                 // Ignore
             }
@@ -176,7 +173,7 @@ public class ACEConnector implements Connector{
             
         // Catch and forward errors
         } catch (Exception e) {
-            throw new ConnectorException(e);
+            throw error(e);
         }
     }
 
@@ -184,20 +181,21 @@ public class ACEConnector implements Connector{
      * Read pseudonym.
      * 
      * @param id the identifier used for reading the pseudonym.
+     * @return whether the pseudonym was found
      */
     @Override
-    public void readPseudonym(String id) throws ConnectorException {
+    public boolean readPseudonym(String id) throws ConnectorException {
 		try {
-			// Authenticate
-		    authenticate();
-		    service.readPseudonym(this.token, this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
+		    service.readPseudonym(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
+		    return true;
 		    
 		// Catch and forward errors
 		} catch (Exception e) {
 		    // It is ok if the pseudonym does not exist
 		    if (!(e instanceof HTTPException && ((HTTPException) e).getStatusCode() == 404)) {
-		        throw new ConnectorException(e);
+		        throw error(e);
 		    } 
+		    return false;
 		}
     }
 
@@ -205,20 +203,21 @@ public class ACEConnector implements Connector{
      * Update pseudonym.
      * 
      * @param id the identifier used for updating the pseudonym.
+     * @return whether the pseudonym was found
      */
     @Override
-    public void updatePseudonym(String id) throws ConnectorException {
+    public boolean updatePseudonym(String id) throws ConnectorException {
         try {
-        	// Authenticate
-            authenticate();
-            service.updatePseudonym(this.token, this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE).withValidFrom(DEFAULT_PSEUDONYM_VALID_FROM));
+            service.updatePseudonym(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE).withValidFrom(DEFAULT_PSEUDONYM_VALID_FROM));
+            return true;
             
         // Catch and forward errors
         } catch (Exception e) {
             // It is ok if the pseudonym does not exist
             if (!(e instanceof HTTPException && ((HTTPException) e).getStatusCode() == 404)) {
-                throw new ConnectorException(e);
+                throw error(e);
             } 
+            return false;
         }
     }
 
@@ -226,20 +225,21 @@ public class ACEConnector implements Connector{
      * Delete pseudonym.
      * 
      * @param id the identifier used for deleting the pseudonym.
+     * @return whether the pseudonym was found
      */
     @Override
-    public void deletePseudonym(String id) throws ConnectorException {
+    public boolean deletePseudonym(String id) throws ConnectorException {
         try {
-        	// Authenticate
-            authenticate();
-            service.deletePseudonym(this.token, this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
+            service.deletePseudonym(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE));
+            return true;
             
         // Catch and forward errors
         } catch (Exception e) {
             // It is ok if the pseudonym does not exist
             if (!(e instanceof HTTPException && ((HTTPException) e).getStatusCode() == 404)) {
-                throw new ConnectorException(e);
+                throw error(e);
             } 
+            return false;
         }
     }
 
@@ -249,16 +249,236 @@ public class ACEConnector implements Connector{
     @Override
     public void ping() throws ConnectorException {
         try {
-        	// Authenticate
-        	authenticate();
-        	
-            service.ping(this.token);
+            service.ping(tokens.getToken());
         // Catch and forward errors
         } catch (Exception e) {
             // It is ok if the endpoint does not exist
             if (!(e instanceof HTTPException && ((HTTPException) e).getStatusCode() == 404)) {
-                throw new ConnectorException(e);
+                throw error(e);
             }
         }
     }
+
+    /**
+     * Create pseudonyms in batches.
+     * 
+     * @param ids the identifiers used for creating the pseudonyms.
+     */
+    @Override
+    public void createPseudonymBatch(List<String> ids) throws ConnectorException {
+        try {
+            service.createPseudonymBatch(tokens.getToken(), this.domain, toPseudonyms(ids));
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * Read pseudonyms in batches.
+     * 
+     * @param ids the identifiers used for reading the pseudonyms.
+     */
+    @Override
+    public void readPseudonymBatch(List<String> ids) throws ConnectorException {
+        try {
+            service.readPseudonymBatch(tokens.getToken(), this.domain, toPseudonyms(ids));
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            // It is ok if the pseudonyms do not exist
+            if (!(e instanceof HTTPException && ((HTTPException) e).getStatusCode() == 404)) {
+                throw error(e);
+            } 
+        }
+    }
+
+    /**
+     * Live gauges of the transport's connection pool.
+     * 
+     * @return the gauges by name
+     */
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>(ClientManager.getTransport().getGauges());
+        gauges.putAll(tokens.getGauges());
+        return gauges;
+    }
+
+    /**
+     * Stops refreshing the access token.
+     */
+    @Override
+    public void close() {
+        tokens.close();
+    }
+
+    /**
+     * Create pseudonym asynchronously.
+     * 
+     * @param id the identifier used for creating the pseudonym.
+     */
+    @Override
+    public CompletionStage<Void> createPseudonymAsync(String id) {
+        try {
+            return forward(service.createPseudonymAsync(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE)), false);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+
+    /**
+     * Read pseudonym asynchronously.
+     * 
+     * @param id the identifier used for reading the pseudonym.
+     */
+    @Override
+    public CompletionStage<Boolean> readPseudonymAsync(String id) {
+        try {
+            return found(service.readPseudonymAsync(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE)), true);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+
+    /**
+     * Update pseudonym asynchronously.
+     * 
+     * @param id the identifier used for updating the pseudonym.
+     */
+    @Override
+    public CompletionStage<Boolean> updatePseudonymAsync(String id) {
+        try {
+            return found(service.updatePseudonymAsync(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE).withValidFrom(DEFAULT_PSEUDONYM_VALID_FROM)), true);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+
+    /**
+     * Delete pseudonym asynchronously.
+     * 
+     * @param id the identifier used for deleting the pseudonym.
+     */
+    @Override
+    public CompletionStage<Boolean> deletePseudonymAsync(String id) {
+        try {
+            return found(service.deletePseudonymAsync(tokens.getToken(), this.domain, new ACEPseudonym(id, DEFAULT_ID_TYPE)), true);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+
+    /**
+     * Ping ACE asynchronously.
+     */
+    @Override
+    public CompletionStage<Void> pingAsync() {
+        try {
+            return forward(service.pingAsync(tokens.getToken()), true);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+    
+    /**
+     * Create pseudonyms in batches asynchronously.
+     * 
+     * @param ids the identifiers used for creating the pseudonyms.
+     */
+    @Override
+    public CompletionStage<Void> createPseudonymBatchAsync(List<String> ids) {
+        try {
+            return forward(service.createPseudonymBatchAsync(tokens.getToken(), this.domain, toPseudonyms(ids)), false);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+
+    /**
+     * Read pseudonyms in batches asynchronously.
+     * 
+     * @param ids the identifiers used for reading the pseudonyms.
+     */
+    @Override
+    public CompletionStage<Void> readPseudonymBatchAsync(List<String> ids) {
+        try {
+            return forward(service.readPseudonymBatchAsync(tokens.getToken(), this.domain, toPseudonyms(ids)), true);
+            
+        // Catch and forward errors
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(error(e));
+        }
+    }
+    
+    /**
+     * Wraps an error, keeping the status code of failed requests.
+     * 
+     * @param t
+     * @return the exception
+     */
+    private static ConnectorException error(Throwable t) {
+        if (t instanceof HTTPException && ((HTTPException) t).getStatusCode() > 0) {
+            return new ConnectorException(t, ((HTTPException) t).getStatusCode());
+        }
+        return new ConnectorException(t);
+    }
+    
+    /**
+     * Creates the pseudonyms for the given identifiers.
+     * 
+     * @param ids
+     * @return the pseudonyms
+     */
+    private static List<ACEPseudonym> toPseudonyms(List<String> ids) {
+        List<ACEPseudonym> pseudonyms = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            pseudonyms.add(new ACEPseudonym(id, DEFAULT_ID_TYPE));
+        }
+        return pseudonyms;
+    }
+    
+    /**
+     * Translates the outcome of an asynchronous request in the same way as the synchronous methods do.
+     * 
+     * @param stage the stage of the request
+     * @param ignoreNotFound whether it is ok if the requested object does not exist
+     * @return a stage that completes exceptionally with a ConnectorException on errors
+     */
+    private static CompletionStage<Void> forward(CompletionStage<String> stage, boolean ignoreNotFound) {
+        return found(stage, ignoreNotFound).thenApply(found -> null);
+    }
+    
+    /**
+     * Translates the outcome of an asynchronous request in the same way as the synchronous methods do.
+     * 
+     * @param stage the stage of the request
+     * @param ignoreNotFound whether it is ok if the requested object does not exist
+     * @return a stage that completes with whether the object was found or exceptionally with a ConnectorException on errors
+     */
+    private static CompletionStage<Boolean> found(CompletionStage<String> stage, boolean ignoreNotFound) {
+        return stage.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (!(ignoreNotFound && cause instanceof HTTPException && ((HTTPException) cause).getStatusCode() == 404)) {
+                    throw new CompletionException(error(cause));
+                }
+                return Boolean.FALSE;
+            }
+            return Boolean.TRUE;
+        });
+    }
 }
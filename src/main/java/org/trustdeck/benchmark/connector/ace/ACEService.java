@@ -19,10 +19,15 @@ package org.trustdeck.benchmark.connector.ace;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.trustdeck.benchmark.connector.PseudonymizationService;
-import org.trustdeck.benchmark.connector.ace.HTTPRequest.HTTPMediaType;
 import org.trustdeck.benchmark.connector.ace.HTTPRequest.HTTPRequestType;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -36,19 +41,112 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 public class ACEService implements PseudonymizationService<ACEToken, ACEDomain, ACEPseudonym> {
     
-    /** Mapper. */
-    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    /** Mapper. Package-private for the microbenchmarks. */
+    static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    
+    /** Default maximal number of pseudonyms per batch request. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    
+    /** Maximal number of templates of bodies. Bodies of further pseudonyms are encoded with the mapper. */
+    private static final int MAX_TEMPLATES = 16;
+    
+    /**
+     * Encoding of the bodies of requests concerning single pseudonyms.
+     */
+    public enum BodyEncoding {
+        /** Serialize each body with the mapper. */
+        JACKSON,
+        /** Write the identifier into a pre-encoded template, see {@link PseudonymTemplate}. */
+        TEMPLATE
+    }
+    
+    /**
+     * Endpoints concerning the pseudonyms of a domain.
+     */
+    private static class DomainEndpoints {
+        
+        /** Single pseudonyms. */
+        private final Endpoint pseudonym;
+        
+        /** Batches of pseudonyms. */
+        private final Endpoint pseudonyms;
+        
+        /** Searches for batches of pseudonyms. */
+        private final Endpoint search;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param service
+         * @param domain
+         */
+        private DomainEndpoints(URI service, String domain) {
+            String segment = HTTPUtil.segment(domain);
+            this.pseudonym = new Endpoint(service, "/domains/" + segment + "/pseudonym");
+            this.pseudonyms = new Endpoint(service, "/domains/" + segment + "/pseudonyms");
+            this.search = new Endpoint(service, "/domains/" + segment + "/pseudonyms/search");
+        }
+    }
     
     /** The service represented by it's base URI. */
     private final URI service;
     
+    /** Maximal number of pseudonyms per batch request. Larger batches are split. */
+    private final int maxBatchSize;
+    
+    /** Encoding of the bodies of requests concerning single pseudonyms. */
+    private final BodyEncoding bodyEncoding;
+    
+    /** Templates of bodies, created on demand. */
+    private final List<PseudonymTemplate> templates = new CopyOnWriteArrayList<>();
+    
+    /** Endpoint for domains. */
+    private final Endpoint domainEndpoint;
+    
+    /** Endpoint for pings. */
+    private final Endpoint ping;
+    
+    /** Further endpoints, created on demand and indexed by their path. */
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    
+    /** Endpoints concerning pseudonyms, created on demand and indexed by the name of the domain. */
+    private final Map<String, DomainEndpoints> domainEndpoints = new ConcurrentHashMap<>();
+    
     /**
      * Creates a new instance.
      * 
      * @param service
      */
     public ACEService(URI service) {
+        this(service, DEFAULT_MAX_BATCH_SIZE);
+    }
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param service
+     * @param maxBatchSize
+     */
+    public ACEService(URI service, int maxBatchSize) {
+        this(service, maxBatchSize, BodyEncoding.JACKSON);
+    }
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param service
+     * @param maxBatchSize
+     * @param bodyEncoding
+     */
+    public ACEService(URI service, int maxBatchSize, BodyEncoding bodyEncoding) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximal batch size must be greater than zero.");
+        }
         this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.bodyEncoding = bodyEncoding;
+        this.domainEndpoint = new Endpoint(service, "/domain");
+        this.ping = new Endpoint(service, "/ping");
     }
     
     /**
@@ -63,12 +161,11 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
     @Override
     public void createDomain(ACEToken token, ACEDomain domain) throws URISyntaxException, HTTPException, JsonProcessingException {
         // Build the request
-        HTTPRequest request = new HTTPRequest(service,
-                                              "/domain",
+        HTTPRequest request = new HTTPRequest(domainEndpoint,
                                               HTTPRequestType.POST,
-                                              token.getToken(),
+                                              token,
                                               MAPPER.writer().writeValueAsString(domain),
-                                              HTTPMediaType.APPLICATION_JSON);
+                                              null);
         
         // Execute
         request.execute();
@@ -84,16 +181,11 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void readDomain(ACEToken token, ACEDomain domain) throws URISyntaxException, HTTPException {
-        // Store query parameters
-        HashMap<String, String> parameters = new HashMap<>();
-        parameters.put("name", domain.getName());
-        
         // Build the request
-        HTTPRequest request = new HTTPRequest(service,
-                                              "/domain",
+        HTTPRequest request = new HTTPRequest(domainEndpoint,
                                               HTTPRequestType.GET,
-                                              token.getToken(),
-                                              parameters);
+                                              token,
+                                              HTTPUtil.query("name", domain.getName()));
         
         // Execute
         request.execute();
@@ -111,12 +203,11 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
     @Override
     public void updateDomain(ACEToken token, ACEDomain domain) throws URISyntaxException, HTTPException, JsonProcessingException {
     	// Build the request
-        HTTPRequest request = new HTTPRequest(service,
-                                              "/domain",
+        HTTPRequest request = new HTTPRequest(domainEndpoint,
                                               HTTPRequestType.PUT,
-                                              token.getToken(),
+                                              token,
                                               MAPPER.writer().writeValueAsString(domain),
-                                              HTTPMediaType.APPLICATION_JSON);
+                                              null);
         
         // Execute
         request.execute();
@@ -131,16 +222,11 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void deleteDomain(ACEToken token, ACEDomain domain) throws URISyntaxException, HTTPException {
-    	// Store query parameters
-        HashMap<String, String> parameters = new HashMap<>();
-        parameters.put("name", domain.getName());
-        
         // Build the request
-        HTTPRequest request = new HTTPRequest(service,
-                                              "/domain",
+        HTTPRequest request = new HTTPRequest(domainEndpoint,
                                               HTTPRequestType.DELETE,
-                                              token.getToken(),
-                                              parameters);
+                                              token,
+                                              HTTPUtil.query("name", domain.getName()));
         
         // Execute
         request.execute();
@@ -156,13 +242,13 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
     @Override
     public void clearTables(ACEToken token) throws URISyntaxException, HTTPException {
     	// Build the requests and execute them
-    	HTTPRequest request = new HTTPRequest(service, "/table/pseudonym", HTTPRequestType.DELETE, token.getToken(), null);
+    	HTTPRequest request = new HTTPRequest(endpoint("/table/pseudonym"), HTTPRequestType.DELETE, token, null);
         request.execute();
         
-        request = new HTTPRequest(service, "/table/domain", HTTPRequestType.DELETE, token.getToken(), null);
+        request = new HTTPRequest(endpoint("/table/domain"), HTTPRequestType.DELETE, token, null);
         request.execute();
         
-        request = new HTTPRequest(service, "/table/auditevent", HTTPRequestType.DELETE, token.getToken(), null);
+        request = new HTTPRequest(endpoint("/table/auditevent"), HTTPRequestType.DELETE, token, null);
         request.execute();
     }
     
@@ -176,7 +262,7 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
     @Override
     public String getStorage(ACEToken token, String tableName) throws URISyntaxException, HTTPException {
     	// Build the request and execute them
-    	HTTPRequest request = new HTTPRequest(service, "/table/"+tableName+"/storage", HTTPRequestType.GET, token.getToken(), null);
+    	HTTPRequest request = new HTTPRequest(endpoint("/table/"+tableName+"/storage"), HTTPRequestType.GET, token, null);
         return request.execute();
     }
 
@@ -192,16 +278,8 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void createPseudonym(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, HTTPException, JsonProcessingException {
-    	// Build the request
-    	HTTPRequest request = new HTTPRequest(service, 
-											  "/domains/" + domain.getName() + "/pseudonym", 
-											  HTTPRequestType.POST, 
-											  token.getToken(), 
-											  MAPPER.writer().writeValueAsString(pseudonym), 
-											  HTTPMediaType.APPLICATION_JSON);
-    	
-    	// Execute
-    	request.execute();
+    	// Build the request and execute it
+    	createPseudonymRequest(token, domain, pseudonym).execute();
     }
     
     /**
@@ -216,20 +294,8 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void readPseudonym(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, HTTPException, JsonProcessingException {
-    	// Store query parameters
-    	HashMap<String, String> parameters = new HashMap<>();
-        parameters.put("id", pseudonym.getId());
-        parameters.put("idType", pseudonym.getIdType());
-        
-        // Build the request
-        HTTPRequest request = new HTTPRequest(service, 
-											  "/domains/" + domain.getName() + "/pseudonym", 
-											  HTTPRequestType.GET, 
-											  token.getToken(),
-											  parameters);
-        
-        // Execute
-        request.execute();
+    	// Build the request and execute it
+    	readPseudonymRequest(token, domain, pseudonym).execute();
     }
 
     /**
@@ -244,22 +310,8 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void updatePseudonym(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, HTTPException, JsonProcessingException {
-    	// Store query parameters
-    	HashMap<String, String> parameters = new HashMap<>();
-        parameters.put("id", pseudonym.getId());
-        parameters.put("idType", pseudonym.getIdType());
-        
-        // Build the request
-        HTTPRequest request = new HTTPRequest(service, 
-        									  "/domains/" + domain.getName() + "/pseudonym", 
-        									  HTTPRequestType.PUT, 
-        									  token.getToken(), 
-        									  MAPPER.writer().writeValueAsString(pseudonym), 
-                HTTPMediaType.APPLICATION_JSON,
-				  parameters);
-        
-        // Execute
-        request.execute();
+    	// Build the request and execute it
+    	updatePseudonymRequest(token, domain, pseudonym).execute();
     }
     
     /**
@@ -274,20 +326,8 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void deletePseudonym(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, HTTPException, JsonProcessingException {
-    	// Store query parameters
-    	HashMap<String, String> parameters = new HashMap<>();
-        parameters.put("id", pseudonym.getId());
-        parameters.put("idType", pseudonym.getIdType());
-        
-        // Build the request
-        HTTPRequest request = new HTTPRequest(service, 
-        									  "/domains/" + domain.getName() + "/pseudonym", 
-        									  HTTPRequestType.DELETE, 
-        									  token.getToken(),
-        									  parameters);
-        
-        // Execute
-        request.execute();
+    	// Build the request and execute it
+    	deletePseudonymRequest(token, domain, pseudonym).execute();
     }
     
     /**
@@ -300,10 +340,345 @@ public class ACEService implements PseudonymizationService<ACEToken, ACEDomain,
      */
     @Override
     public void ping(ACEToken token) throws URISyntaxException, HTTPException, JsonProcessingException {
-    	// Build the request
-    	HTTPRequest request = new HTTPRequest(service, "/ping", HTTPRequestType.GET, token.getToken(), null);
+    	// Build the request and execute it
+    	pingRequest(token).execute();
+    }
+    
+    /**
+     * Create pseudonym asynchronously.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public CompletionStage<String> createPseudonymAsync(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, JsonProcessingException {
+        return createPseudonymRequest(token, domain, pseudonym).executeAsync();
+    }
+    
+    /**
+     * Read pseudonym asynchronously.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    @Override
+    public CompletionStage<String> readPseudonymAsync(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException {
+        return readPseudonymRequest(token, domain, pseudonym).executeAsync();
+    }
+    
+    /**
+     * Update pseudonym asynchronously.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public CompletionStage<String> updatePseudonymAsync(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException, JsonProcessingException {
+        return updatePseudonymRequest(token, domain, pseudonym).executeAsync();
+    }
+    
+    /**
+     * Delete pseudonym asynchronously.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    @Override
+    public CompletionStage<String> deletePseudonymAsync(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws URISyntaxException {
+        return deletePseudonymRequest(token, domain, pseudonym).executeAsync();
+    }
+    
+    /**
+     * Ping asynchronously.
+     * 
+     * @param token
+     * @return the stage completing with the response
+     * @throws URISyntaxException
+     */
+    @Override
+    public CompletionStage<String> pingAsync(ACEToken token) throws URISyntaxException {
+        return pingRequest(token).executeAsync();
+    }
+    
+    /**
+     * Create pseudonyms in batches of at most the maximal batch size.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @throws URISyntaxException
+     * @throws HTTPException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public void createPseudonymBatch(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws URISyntaxException, HTTPException, JsonProcessingException {
+        for (List<ACEPseudonym> batch : split(pseudonyms)) {
+            createPseudonymBatchRequest(token, domain, batch).execute();
+        }
+    }
+    
+    /**
+     * Read pseudonyms in batches of at most the maximal batch size.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @throws URISyntaxException
+     * @throws HTTPException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public void readPseudonymBatch(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws URISyntaxException, HTTPException, JsonProcessingException {
+        for (List<ACEPseudonym> batch : split(pseudonyms)) {
+            readPseudonymBatchRequest(token, domain, batch).execute();
+        }
+    }
+    
+    /**
+     * Create pseudonyms in batches asynchronously. The batches are sent concurrently.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the stage completing when all batches are done
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public CompletionStage<String> createPseudonymBatchAsync(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws URISyntaxException, JsonProcessingException {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (List<ACEPseudonym> batch : split(pseudonyms)) {
+            futures.add(createPseudonymBatchRequest(token, domain, batch).executeAsync().toCompletableFuture());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> null);
+    }
+    
+    /**
+     * Read pseudonyms in batches asynchronously. The batches are sent concurrently.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the stage completing when all batches are done
+     * @throws URISyntaxException
+     * @throws JsonProcessingException
+     */
+    @Override
+    public CompletionStage<String> readPseudonymBatchAsync(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws URISyntaxException, JsonProcessingException {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (List<ACEPseudonym> batch : split(pseudonyms)) {
+            futures.add(readPseudonymBatchRequest(token, domain, batch).executeAsync().toCompletableFuture());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> null);
+    }
+    
+    /**
+     * Splits the pseudonyms into batches of at most the maximal batch size.
+     * 
+     * @param pseudonyms
+     * @return the batches
+     */
+    private List<List<ACEPseudonym>> split(List<ACEPseudonym> pseudonyms) {
+        List<List<ACEPseudonym>> batches = new ArrayList<>();
+        for (int i = 0; i < pseudonyms.size(); i += maxBatchSize) {
+            batches.add(pseudonyms.subList(i, Math.min(i + maxBatchSize, pseudonyms.size())));
+        }
+        return batches;
+    }
+    
+    /**
+     * Builds the request for creating a batch of pseudonyms.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the request
+     * @throws JsonProcessingException
+     */
+    private HTTPRequest createPseudonymBatchRequest(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws JsonProcessingException {
+        return new HTTPRequest(endpoints(domain).pseudonyms, 
+                               HTTPRequestType.POST, 
+                               token, 
+                               MAPPER.writer().writeValueAsString(pseudonyms), 
+                               null);
+    }
+    
+    /**
+     * Builds the request for reading a batch of pseudonyms. The identifiers are sent
+     * in the body, as they would exceed the maximal length of a query string.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonyms
+     * @return the request
+     * @throws JsonProcessingException
+     */
+    private HTTPRequest readPseudonymBatchRequest(ACEToken token, ACEDomain domain, List<ACEPseudonym> pseudonyms) throws JsonProcessingException {
+        return new HTTPRequest(endpoints(domain).search, 
+                               HTTPRequestType.POST, 
+                               token, 
+                               MAPPER.writer().writeValueAsString(pseudonyms), 
+                               null);
+    }
+    
+    /**
+     * Builds the request for creating a pseudonym.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the request
+     * @throws JsonProcessingException
+     */
+    HTTPRequest createPseudonymRequest(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws JsonProcessingException {
+        // Use a template, if possible
+        byte[] body = encode(pseudonym);
+        if (body != null) {
+            return new HTTPRequest(endpoints(domain).pseudonym, HTTPRequestType.POST, token, body, null);
+        }
         
-        // Execute
-        request.execute();
+        // Serialize
+        return new HTTPRequest(endpoints(domain).pseudonym, 
+                               HTTPRequestType.POST, 
+                               token, 
+                               MAPPER.writer().writeValueAsString(pseudonym), 
+                               null);
+    }
+    
+    /**
+     * Builds the request for reading a pseudonym.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the request
+     */
+    HTTPRequest readPseudonymRequest(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) {
+        return new HTTPRequest(endpoints(domain).pseudonym, 
+                               HTTPRequestType.GET, 
+                               token,
+                               query(pseudonym));
+    }
+    
+    /**
+     * Builds the request for updating a pseudonym.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the request
+     * @throws JsonProcessingException
+     */
+    private HTTPRequest updatePseudonymRequest(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) throws JsonProcessingException {
+        // Use a template, if possible
+        byte[] body = encode(pseudonym);
+        if (body != null) {
+            return new HTTPRequest(endpoints(domain).pseudonym, HTTPRequestType.PUT, token, body, query(pseudonym));
+        }
+        
+        // Build the request
+        return new HTTPRequest(endpoints(domain).pseudonym, 
+                               HTTPRequestType.PUT, 
+                               token, 
+                               MAPPER.writer().writeValueAsString(pseudonym), 
+                               query(pseudonym));
+    }
+    
+    /**
+     * Builds the request for deleting a pseudonym.
+     * 
+     * @param token
+     * @param domain
+     * @param pseudonym
+     * @return the request
+     */
+    private HTTPRequest deletePseudonymRequest(ACEToken token, ACEDomain domain, ACEPseudonym pseudonym) {
+        return new HTTPRequest(endpoints(domain).pseudonym, 
+                               HTTPRequestType.DELETE, 
+                               token,
+                               query(pseudonym));
+    }
+    
+    /**
+     * Encodes the body of a request concerning a single pseudonym with a template.
+     * 
+     * @param pseudonym
+     * @return the body or null, if bodies are serialized with the mapper or no template can be used
+     * @throws JsonProcessingException
+     */
+    private byte[] encode(ACEPseudonym pseudonym) throws JsonProcessingException {
+        if (bodyEncoding != BodyEncoding.TEMPLATE) {
+            return null;
+        }
+        
+        // Find template
+        for (int i = 0; i < templates.size(); i++) {
+            PseudonymTemplate template = templates.get(i);
+            if (template.matches(pseudonym)) {
+                return template.encode(pseudonym.getId());
+            }
+        }
+        
+        // Create template, concurrently created duplicates do no harm
+        if (templates.size() >= MAX_TEMPLATES) {
+            return null;
+        }
+        PseudonymTemplate template = new PseudonymTemplate(MAPPER, pseudonym);
+        templates.add(template);
+        return template.encode(pseudonym.getId());
+    }
+    
+    /**
+     * Builds the request for pinging the service.
+     * 
+     * @param token
+     * @return the request
+     */
+    private HTTPRequest pingRequest(ACEToken token) {
+        return new HTTPRequest(ping, HTTPRequestType.GET, token, null);
+    }
+    
+    /**
+     * Returns the endpoint with the given path.
+     * 
+     * @param path
+     * @return the endpoint
+     */
+    private Endpoint endpoint(String path) {
+        return endpoints.computeIfAbsent(path, p -> new Endpoint(service, p));
+    }
+    
+    /**
+     * Returns the endpoints concerning the pseudonyms of the given domain.
+     * 
+     * @param domain
+     * @return the endpoints
+     */
+    private DomainEndpoints endpoints(ACEDomain domain) {
+        return domainEndpoints.computeIfAbsent(domain.getName(), name -> new DomainEndpoints(service, name));
+    }
+    
+    /**
+     * Returns the query string identifying the given pseudonym.
+     * 
+     * @param pseudonym
+     * @return the query string
+     */
+    private static String query(ACEPseudonym pseudonym) {
+        return HTTPUtil.query("id", pseudonym.getId(), "idType", pseudonym.getIdType());
     }
 }
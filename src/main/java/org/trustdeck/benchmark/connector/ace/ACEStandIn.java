@@ -0,0 +1,543 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark.connector.ace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded stand-in for ACE and Keycloak. It serves the endpoints used by {@link ACEService}
+ * and the token endpoint used by {@link KeycloakAuthentication} from an in-memory store. This
+ * allows for measuring the ceiling of the driver itself and for running the benchmark offline.
+ * Latency and errors can be injected, see {@link ACEStandInSettings}. Injected latency does
+ * not block the threads handling requests. Errors are only injected into the workload, i.e.
+ * requests to pseudonyms and pings, so that setting up domains and purging tables never fails.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class ACEStandIn {
+    
+    /** Base path of the service. */
+    public static final String SERVICE_PATH = "/api";
+    
+    /** Prefix of the path of the token endpoint, followed by the name of the realm. */
+    private static final String REALMS_PATH = "/realms/";
+    
+    /** Suffix of the path of the token endpoint. */
+    private static final String TOKEN_PATH = "/protocol/openid-connect/token";
+    
+    /** Prefix of the issued tokens. */
+    private static final String TOKEN_PREFIX = "standin-";
+    
+    /** Size of a record, used to report the storage consumption, in bytes. */
+    private static final long RECORD_SIZE = 128;
+    
+    /** Mapper. */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    /** Settings. */
+    private final ACEStandInSettings settings;
+    
+    /** Domains by name. */
+    private final Map<String, JsonNode> domains = new ConcurrentHashMap<>();
+    
+    /** Pseudonyms by domain and identifier. */
+    private final Map<String, Map<String, String>> pseudonyms = new ConcurrentHashMap<>();
+    
+    /** Number of pseudonyms created, used to derive new pseudonyms. */
+    private final AtomicLong created = new AtomicLong();
+    
+    /** Number of requests served. */
+    private final AtomicLong requests = new AtomicLong();
+    
+    /** Number of audit events, i.e. of requests served since the table was cleared. */
+    private final AtomicLong auditEvents = new AtomicLong();
+    
+    /** Number of injected errors. */
+    private final AtomicLong errors = new AtomicLong();
+    
+    /** Number of issued tokens. */
+    private final AtomicLong tokens = new AtomicLong();
+    
+    /** Server. */
+    private HttpServer server;
+    
+    /** Threads handling the requests. */
+    private ExecutorService handlers;
+    
+    /** Threads sending delayed responses. */
+    private ScheduledExecutorService responders;
+    
+    /**
+     * A response.
+     */
+    private static class Response {
+        
+        /** Status. */
+        private final int status;
+        
+        /** Body, may be null. */
+        private final String body;
+        
+        /**
+         * Creates a new instance.
+         * 
+         * @param status
+         * @param body
+         */
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param settings
+     */
+    public ACEStandIn(ACEStandInSettings settings) {
+        this.settings = settings;
+    }
+    
+    /**
+     * Starts serving requests.
+     * 
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        
+        // Small responses must not be held back by Nagle's algorithm
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        
+        // Prepare threads
+        handlers = Executors.newFixedThreadPool(settings.getThreads(), createThreadFactory("standin-handler-"));
+        responders = Executors.newScheduledThreadPool(Math.max(1, settings.getThreads() / 4), createThreadFactory("standin-responder-"));
+        
+        // Start server
+        server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()), 1024);
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+    
+    /**
+     * Stops serving requests.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+            responders.shutdownNow();
+            server = null;
+        }
+    }
+    
+    /**
+     * Returns the number of requests served.
+     * 
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    /**
+     * Returns the number of injected errors.
+     * 
+     * @return the number of errors
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+    
+    /**
+     * Handles a request. The response is sent by a responder thread if latency is injected.
+     * 
+     * @param exchange
+     */
+    private void handle(HttpExchange exchange) {
+        Response response;
+        try {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            response = serve(exchange, new String(body, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            response = new Response(500, e.getMessage());
+        }
+        
+        // Inject latency
+        long delay = settings.getLatency() + (settings.getJitter() > 0 ? ThreadLocalRandom.current().nextInt(settings.getJitter() + 1) : 0);
+        if (delay > 0) {
+            final Response delayed = response;
+            responders.schedule(() -> send(exchange, delayed), delay, TimeUnit.MILLISECONDS);
+        } else {
+            send(exchange, response);
+        }
+    }
+    
+    /**
+     * Sends a response and completes the exchange.
+     * 
+     * @param exchange
+     * @param response
+     */
+    private void send(HttpExchange exchange, Response response) {
+        try {
+            if (response.body == null || response.body.isEmpty()) {
+                exchange.sendResponseHeaders(response.status, -1);
+            } else {
+                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(response.status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException e) {
+            // Ignore, the client has gone
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Serves a request.
+     * 
+     * @param exchange
+     * @param body
+     * @return the response
+     * @throws IOException
+     */
+    private Response serve(HttpExchange exchange, String body) throws IOException {
+        
+        // Issue tokens
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith(REALMS_PATH) && path.endsWith(TOKEN_PATH) && method.equals("POST")) {
+            return token();
+        }
+        
+        // Check authentication
+        if (!path.startsWith(SERVICE_PATH + "/")) {
+            return new Response(404, null);
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer " + TOKEN_PREFIX)) {
+            return new Response(401, null);
+        }
+        requests.incrementAndGet();
+        auditEvents.incrementAndGet();
+        
+        // Inject errors into the workload only
+        String[] segments = path.substring(SERVICE_PATH.length() + 1).split("/");
+        boolean workload = segments[0].equals("domains") || segments[0].equals("ping");
+        if (workload && settings.getErrorRate() > 0d && ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+            errors.incrementAndGet();
+            return new Response(settings.getErrorStatus(), null);
+        }
+        
+        // Route
+        Map<String, String> parameters = parse(exchange.getRequestURI());
+        switch (segments[0]) {
+            case "ping":
+                return new Response(200, "pong");
+            case "domain":
+                return domain(method, parameters, body);
+            case "table":
+                if (segments.length == 2 && method.equals("DELETE")) {
+                    return clear(segments[1]);
+                } else if (segments.length == 3 && segments[2].equals("storage") && method.equals("GET")) {
+                    return storage(segments[1]);
+                }
+                break;
+            case "domains":
+                if (segments.length < 3) {
+                    break;
+                }
+                Map<String, String> domain = pseudonyms.get(segments[1]);
+                if (domain == null) {
+                    return new Response(404, null);
+                }
+                if (segments.length == 3 && segments[2].equals("pseudonym")) {
+                    return pseudonym(segments[1], domain, method, parameters, body);
+                } else if (segments.length == 3 && segments[2].equals("pseudonyms") && method.equals("POST")) {
+                    return createBatch(segments[1], domain, body);
+                } else if (segments.length == 4 && segments[2].equals("pseudonyms") && segments[3].equals("search") && method.equals("POST")) {
+                    return readBatch(segments[1], domain, body);
+                }
+                break;
+        }
+        return new Response(404, null);
+    }
+    
+    /**
+     * Issues a new token.
+     * 
+     * @return the response
+     */
+    private Response token() {
+        long token = tokens.incrementAndGet();
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("access_token", TOKEN_PREFIX + token);
+        response.put("expires_in", settings.getTokenLifetime());
+        response.put("refresh_expires_in", settings.getTokenLifetime() * 2);
+        response.put("refresh_token", TOKEN_PREFIX + "refresh-" + token);
+        response.put("token_type", "Bearer");
+        return new Response(200, response.toString());
+    }
+    
+    /**
+     * Serves a request concerning a domain.
+     * 
+     * @param method
+     * @param parameters
+     * @param body
+     * @return the response
+     * @throws IOException
+     */
+    private Response domain(String method, Map<String, String> parameters, String body) throws IOException {
+        switch (method) {
+            case "POST": {
+                JsonNode domain = MAPPER.readTree(body);
+                String name = domain.path("name").asText();
+                if (domains.putIfAbsent(name, domain) != null) {
+                    return new Response(409, null);
+                }
+                pseudonyms.put(name, new ConcurrentHashMap<>());
+                return new Response(201, domain.toString());
+            }
+            case "GET": {
+                JsonNode domain = domains.get(parameters.get("name"));
+                return domain != null ? new Response(200, domain.toString()) : new Response(404, null);
+            }
+            case "PUT": {
+                JsonNode domain = MAPPER.readTree(body);
+                return domains.replace(domain.path("name").asText(), domain) != null ? new Response(200, domain.toString()) : new Response(404, null);
+            }
+            case "DELETE": {
+                String name = parameters.get("name");
+                pseudonyms.remove(name);
+                return domains.remove(name) != null ? new Response(204, null) : new Response(404, null);
+            }
+            default:
+                return new Response(405, null);
+        }
+    }
+    
+    /**
+     * Serves a request concerning a single pseudonym.
+     * 
+     * @param name
+     * @param domain
+     * @param method
+     * @param parameters
+     * @param body
+     * @return the response
+     * @throws IOException
+     */
+    private Response pseudonym(String name, Map<String, String> domain, String method, Map<String, String> parameters, String body) throws IOException {
+        switch (method) {
+            case "POST": {
+                String id = MAPPER.readTree(body).path("id").asText();
+                String psn = name + "-" + created.incrementAndGet();
+                return domain.putIfAbsent(id, psn) == null ? new Response(201, record(id, psn).toString()) : new Response(409, null);
+            }
+            case "GET":
+            case "PUT": {
+                String id = parameters.get("id");
+                String psn = id != null ? domain.get(id) : null;
+                return psn != null ? new Response(200, record(id, psn).toString()) : new Response(404, null);
+            }
+            case "DELETE": {
+                String id = parameters.get("id");
+                return id != null && domain.remove(id) != null ? new Response(204, null) : new Response(404, null);
+            }
+            default:
+                return new Response(405, null);
+        }
+    }
+    
+    /**
+     * Creates a batch of pseudonyms. Existing pseudonyms are kept.
+     * 
+     * @param name
+     * @param domain
+     * @param body
+     * @return the response
+     * @throws IOException
+     */
+    private Response createBatch(String name, Map<String, String> domain, String body) throws IOException {
+        ArrayNode response = MAPPER.createArrayNode();
+        for (JsonNode pseudonym : MAPPER.readTree(body)) {
+            String id = pseudonym.path("id").asText();
+            String psn = domain.computeIfAbsent(id, key -> name + "-" + created.incrementAndGet());
+            response.add(record(id, psn));
+        }
+        return new Response(201, response.toString());
+    }
+    
+    /**
+     * Reads a batch of pseudonyms. Missing pseudonyms are omitted.
+     * 
+     * @param name
+     * @param domain
+     * @param body
+     * @return the response
+     * @throws IOException
+     */
+    private Response readBatch(String name, Map<String, String> domain, String body) throws IOException {
+        ArrayNode response = MAPPER.createArrayNode();
+        for (JsonNode pseudonym : MAPPER.readTree(body)) {
+            String id = pseudonym.path("id").asText();
+            String psn = domain.get(id);
+            if (psn != null) {
+                response.add(record(id, psn));
+            }
+        }
+        return new Response(200, response.toString());
+    }
+    
+    /**
+     * Clears a table.
+     * 
+     * @param table
+     * @return the response
+     */
+    private Response clear(String table) {
+        switch (table) {
+            case "pseudonym":
+                for (Map<String, String> domain : pseudonyms.values()) {
+                    domain.clear();
+                }
+                return new Response(200, null);
+            case "domain":
+                domains.clear();
+                pseudonyms.clear();
+                return new Response(200, null);
+            case "auditevent":
+                auditEvents.set(0);
+                return new Response(200, null);
+            default:
+                return new Response(404, null);
+        }
+    }
+    
+    /**
+     * Reports the storage consumption of a table in the format of ACE.
+     * 
+     * @param table
+     * @return the response
+     */
+    private Response storage(String table) {
+        long records;
+        switch (table) {
+            case "pseudonym":
+                records = 0;
+                for (Map<String, String> domain : pseudonyms.values()) {
+                    records += domain.size();
+                }
+                break;
+            case "domain":
+                records = domains.size();
+                break;
+            case "auditevent":
+                records = auditEvents.get();
+                break;
+            default:
+                return new Response(404, null);
+        }
+        long size = records * RECORD_SIZE;
+        return new Response(200, "tableSize: " + size + ", recordCount: " + records + ", totalSize: " + size);
+    }
+    
+    /**
+     * Returns the representation of a pseudonym.
+     * 
+     * @param id
+     * @param psn
+     * @return the representation
+     */
+    private ObjectNode record(String id, String psn) {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("id", id);
+        record.put("idType", "ID");
+        record.put("psn", psn);
+        return record;
+    }
+    
+    /**
+     * Parses the query parameters of a URI.
+     * 
+     * @param uri
+     * @return the parameters
+     * @throws UnsupportedEncodingException
+     */
+    private static Map<String, String> parse(URI uri) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int index = parameter.indexOf('=');
+                if (index > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, index), "UTF-8"), URLDecoder.decode(parameter.substring(index + 1), "UTF-8"));
+                }
+            }
+        }
+        return parameters;
+    }
+    
+    /**
+     * Creates a factory for daemon threads.
+     * 
+     * @param prefix
+     * @return the factory
+     */
+    private static ThreadFactory createThreadFactory(String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
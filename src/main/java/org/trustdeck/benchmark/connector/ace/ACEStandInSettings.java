@@ -0,0 +1,109 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Settings of the embedded stand-in for ACE and Keycloak. All times are given in milliseconds.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class ACEStandInSettings {
+    
+    /** Address the stand-in listens on and the connectors send their requests to. */
+    private String host = "127.0.0.1";
+    
+    /** Port of the stand-in. */
+    private int port = 18080;
+    
+    /** Number of threads handling requests. */
+    private int threads = 16;
+    
+    /** Latency injected into every response. */
+    private int latency = 0;
+    
+    /** Maximal random latency injected in addition, uniformly distributed. */
+    private int jitter = 0;
+    
+    /** Fraction of the workload requests that fail with the error status. Setup requests never fail. */
+    private double errorRate = 0d;
+    
+    /** Status of the injected errors. */
+    private int errorStatus = 503;
+    
+    /** Lifetime of the issued access tokens in seconds. */
+    private int tokenLifetime = 300;
+    
+    /**
+     * Basic constructor using the default settings.
+     */
+    public ACEStandInSettings() {
+        // Empty by design
+    }
+    
+    /**
+     * Creates settings from the given configuration. Missing values are set to their defaults.
+     * 
+     * @param config the stand-in section of the configuration file, may be null
+     */
+    public ACEStandInSettings(Map<String, Object> config) {
+        if (config != null) {
+            this.host = (String) config.getOrDefault("host", host);
+            this.port = (int) config.getOrDefault("port", port);
+            this.threads = (int) config.getOrDefault("threads", threads);
+            this.latency = (int) config.getOrDefault("latency", latency);
+            this.jitter = (int) config.getOrDefault("jitter", jitter);
+            this.errorRate = ((Number) config.getOrDefault("errorRate", errorRate)).doubleValue();
+            this.errorStatus = (int) config.getOrDefault("errorStatus", errorStatus);
+            this.tokenLifetime = (int) config.getOrDefault("tokenLifetime", tokenLifetime);
+        }
+        
+        // Checks
+        if (port <= 0 || threads <= 0 || tokenLifetime <= 0) {
+            throw new IllegalStateException("Port, number of threads and token lifetime of the stand-in must be greater than zero.");
+        }
+        if (latency < 0 || jitter < 0) {
+            throw new IllegalStateException("Injected latencies must be zero or positive.");
+        }
+        if (errorRate < 0d || errorRate > 1d || errorStatus < 400 || errorStatus > 599) {
+            throw new IllegalStateException("Error rate must be in [0, 1] and the error status must be in [400, 599].");
+        }
+    }
+    
+    /**
+     * Returns the URI of the service to be used instead of ACE.
+     * 
+     * @return the URI
+     */
+    public String getServiceURI() {
+        return getAuthenticationURI() + ACEStandIn.SERVICE_PATH;
+    }
+    
+    /**
+     * Returns the URI of the authentication server to be used instead of Keycloak.
+     * 
+     * @return the URI
+     */
+    public String getAuthenticationURI() {
+        return "http://" + host + ":" + port;
+    }
+}
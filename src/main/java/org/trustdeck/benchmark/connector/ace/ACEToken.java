@@ -26,16 +26,28 @@ public class ACEToken implements Token<String> {
     /** Authentication token*/
     private String token;
     
+    /** Value of the authorization header, built once per token*/
+    private String authorization;
+    
     /**
      * Create a new instance
      * @param token
      */
     public ACEToken(String token) {
         this.token = token;
+        this.authorization = "Bearer " + token;
     }
 
     @Override
     public String getToken() {
         return this.token;
     }
+    
+    /**
+     * Returns the value of the authorization header
+     * @return
+     */
+    public String getAuthorization() {
+        return this.authorization;
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Transport based on the Apache HttpClient with the configured {@link ConnectionPool}. The client
+ * is blocking, asynchronous requests are therefore executed on a separate thread pool.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class ApacheTransport implements HTTPTransport {
+    
+    /** The connection pool. */
+    private final ConnectionPool pool;
+    
+    /** The client object needed to generate and send requests. */
+    private final CloseableHttpClient client;
+    
+    /** Executes asynchronous requests. */
+    private final ExecutorService executor;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param settings the settings of the connection pool
+     */
+    public ApacheTransport(ConnectionPoolSettings settings) {
+        this.pool = new ConnectionPool(settings);
+        this.client = HttpClients.custom()
+                                 .setConnectionManager(pool.getConnectionManager())
+                                 .setConnectionManagerShared(true)
+                                 .setDefaultRequestConfig(pool.getRequestConfig())
+                                 .setKeepAliveStrategy(pool.getKeepAliveStrategy())
+                                 .build();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "apache-transport");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public HTTPResponse execute(HTTPRequest request) throws HTTPException {
+        try (CloseableHttpResponse response = client.execute(build(request))) {
+            String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : null;
+            return new HTTPResponse(response.getStatusLine().getStatusCode(), body);
+        } catch (IOException e) {
+            throw new HTTPException("Error executing HTTP request", e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<HTTPResponse> executeAsync(HTTPRequest request) {
+        return CompletableFuture.supplyAsync(() -> execute(request), executor);
+    }
+    
+    @Override
+    public Map<String, Long> getGauges() {
+        return pool.getGauges();
+    }
+    
+    @Override
+    public void close() {
+        try {
+            this.client.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        this.executor.shutdownNow();
+        this.pool.close();
+    }
+    
+    /**
+     * Builds the Apache request object.
+     * 
+     * @param request
+     * @return the request object
+     */
+    private HttpRequestBase build(HTTPRequest request) {
+        
+        // Build request
+        HttpRequestBase result = null;
+        switch (request.getRequestType()) {
+            case GET:
+                result = new HttpGet(request.getURI());
+                break;
+            case POST:
+                HttpPost post = new HttpPost(request.getURI());
+                post.setEntity(entity(request));
+                result = post;
+                break;
+            case PUT:
+                HttpPut put = new HttpPut(request.getURI());
+                put.setEntity(entity(request));
+                result = put;
+                break;
+            case DELETE:
+                result = new HttpDelete(request.getURI());
+                break;
+            default:
+                throw new IllegalStateException("Unknown request type.");
+        }
+        result.setHeader("Authorization", request.getAuthorization());
+        return result;
+    }
+    
+    /**
+     * Creates the entity of a request.
+     * 
+     * @param request
+     * @return the entity
+     */
+    private AbstractHttpEntity entity(HTTPRequest request) {
+        if (request.isBodyMissing()) {
+            throw new IllegalArgumentException("Body and media type must not be null.");
+        }
+        if (request.getEncodedBody() != null) {
+            return new ByteArrayEntity(request.getEncodedBody(), ContentType.create(request.getContentType(), "UTF-8"));
+        }
+        return new StringEntity(request.getBody(), ContentType.create(request.getContentType(), "UTF-8"));
+    }
+}
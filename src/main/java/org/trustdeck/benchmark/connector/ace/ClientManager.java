@@ -16,17 +16,32 @@
  */
 package org.trustdeck.benchmark.connector.ace;
 
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.trustdeck.benchmark.connector.ace.HTTPTransport.HTTPTransportType;
 
 /**
- * Singleton class for managing the client object needed for generating requests.
+ * Singleton class for managing the transport object needed for executing requests.
+ * Uses a lock instead of synchronized blocks, so that virtual threads waiting for
+ * the transport do not pin their carrier threads.
  * 
  * @author Armin Mller
  */
 public class ClientManager {
-	/** The web client object needed to create requests. Marked volatile, so that every thread sees changes made to it. */
-    private static volatile Client client;
+	/** The transport object needed to execute requests. Marked volatile, so that every thread sees changes made to it. */
+    private static volatile HTTPTransport transport;
+    
+    /** The type of transport to create. */
+    private static volatile HTTPTransportType transportType = HTTPTransportType.JERSEY;
+    
+    /** The type of transport configured for the service, used by configurations that do not select one. */
+    private static volatile HTTPTransportType defaultTransportType = HTTPTransportType.JERSEY;
+    
+    /** The settings of the connection pools of the transports. */
+    private static volatile ConnectionPoolSettings poolSettings = new ConnectionPoolSettings();
+    
+    /** Lock guarding the creation and closing of the transport. */
+    private static final ReentrantLock LOCK = new ReentrantLock();
 
     /**
      *  Private constructor prevents instantiation.
@@ -34,31 +49,115 @@ public class ClientManager {
     private ClientManager() {}
 
     /**
-     * Retrieve or create the client object.
+     * Retrieve or create the transport object.
      * 
-     * @return the client object
+     * @return the transport object
      */
-    public static Client getClient() {
+    public static HTTPTransport getTransport() {
         // Double-checked-locking improves performance since thread 
-    	// safety is only needed when creating the client for the first time.
-    	if (client == null) {
-            synchronized (ClientManager.class) {
-                if (client == null) {
-                    client = ClientBuilder.newClient();
+    	// safety is only needed when creating the transport for the first time.
+    	if (transport == null) {
+            LOCK.lock();
+            try {
+                if (transport == null) {
+                    transport = createTransport(transportType);
                 }
+            } finally {
+                LOCK.unlock();
             }
         }
         
-        return client;
+        return transport;
+    }
+    
+    /**
+     * Sets the type of transport to use. An existing transport of a different type is closed.
+     * 
+     * @param type the type of transport
+     */
+    public static void setTransportType(HTTPTransportType type) {
+        LOCK.lock();
+        try {
+            if (type != transportType) {
+                if (transport != null) {
+                    transport.close();
+                    transport = null;
+                }
+                transportType = type;
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+    
+    /**
+     * Sets the type of transport configured for the service and selects it.
+     * 
+     * @param type the type of transport
+     */
+    public static void setDefaultTransportType(HTTPTransportType type) {
+        defaultTransportType = type;
+        setTransportType(type);
+    }
+    
+    /**
+     * Returns the type of transport configured for the service.
+     * 
+     * @return the type of transport
+     */
+    public static HTTPTransportType getDefaultTransportType() {
+        return defaultTransportType;
+    }
+    
+    /**
+     * Sets the settings of the connection pool. Applies to transports created afterwards.
+     * 
+     * @param settings the settings
+     */
+    public static void setConnectionPoolSettings(ConnectionPoolSettings settings) {
+        poolSettings = settings;
+    }
+    
+    /**
+     * Returns the type of transport used.
+     * 
+     * @return the type of transport
+     */
+    public static HTTPTransportType getTransportType() {
+        return transportType;
     }
 
     /**
-     * Closes the client and unsets the class object.
+     * Closes the transport and unsets the class object.
      */
     public static void shutdown() {
-        if (client != null) {
-            client.close();
-            client = null;
+        LOCK.lock();
+        try {
+            if (transport != null) {
+                transport.close();
+                transport = null;
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+    
+    /**
+     * Creates a new transport.
+     * 
+     * @param type
+     * @return the transport
+     */
+    private static HTTPTransport createTransport(HTTPTransportType type) {
+        switch (type) {
+            case JERSEY:
+                return new JerseyTransport(poolSettings);
+            case JDK:
+                return new JDKTransport(poolSettings);
+            case APACHE:
+                return new ApacheTransport(poolSettings);
+            default:
+                throw new IllegalStateException("Unknown transport: " + type);
         }
     }
 }
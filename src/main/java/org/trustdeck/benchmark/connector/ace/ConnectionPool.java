@@ -0,0 +1,199 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Pool of HTTP connections shared by all requests of a transport. Evicts idle connections in the
+ * background and keeps track of the time requests spend waiting for a connection, so that pool
+ * starvation can be told apart from server latency.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class ConnectionPool {
+    
+    /** The settings. */
+    private final ConnectionPoolSettings settings;
+    
+    /** The connection manager. */
+    private final PoolingHttpClientConnectionManager connectionManager;
+    
+    /** Evicts expired and idle connections. */
+    private final ScheduledExecutorService evictor;
+    
+    /** Gauge of the number of connections handed out. */
+    public static final String GAUGE_WAITS = "Pool waits";
+    
+    /** Gauge of the mean time spent waiting for a connection. */
+    public static final String GAUGE_WAIT_MEAN = "Pool wait mean [us]";
+    
+    /** Gauge of the maximal time spent waiting for a connection. */
+    public static final String GAUGE_WAIT_MAX = "Pool wait max [us]";
+    
+    /** Number of connections handed out since the last call to {@link #getGauges()}. */
+    private final LongAdder acquisitions = new LongAdder();
+    
+    /** Time spent waiting for connections since the last call to {@link #getGauges()} in nanoseconds. */
+    private final LongAdder waitTime = new LongAdder();
+    
+    /** Maximal time spent waiting for a connection since the last call to {@link #getGauges()} in nanoseconds. */
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param settings
+     */
+    public ConnectionPool(ConnectionPoolSettings settings) {
+        this.settings = settings;
+        
+        // Connection manager that measures the time spent waiting for connections
+        this.connectionManager = new PoolingHttpClientConnectionManager() {
+            @Override
+            public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+                final ConnectionRequest request = super.requestConnection(route, state);
+                return new ConnectionRequest() {
+                    @Override
+                    public HttpClientConnection get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                        long start = System.nanoTime();
+                        try {
+                            return request.get(timeout, unit);
+                        } finally {
+                            recordWaitTime(System.nanoTime() - start);
+                        }
+                    }
+
+                    @Override
+                    public boolean cancel() {
+                        return request.cancel();
+                    }
+                };
+            }
+        };
+        this.connectionManager.setMaxTotal(settings.getMaxConnections());
+        this.connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+        
+        // Eviction of idle connections
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, settings.getIdleTimeout() / 2);
+        this.evictor.scheduleAtFixedRate(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(settings.getIdleTimeout(), TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Returns the connection manager.
+     * 
+     * @return the connection manager
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+    
+    /**
+     * Returns the timeouts to use for requests.
+     * 
+     * @return the request configuration
+     */
+    public RequestConfig getRequestConfig() {
+        return RequestConfig.custom()
+                            .setConnectTimeout(settings.getConnectTimeout())
+                            .setSocketTimeout(settings.getReadTimeout())
+                            .setConnectionRequestTimeout(settings.getConnectionRequestTimeout())
+                            .build();
+    }
+    
+    /**
+     * Returns the keep-alive strategy, which falls back to the configured keep-alive time
+     * if the server does not specify one.
+     * 
+     * @return the strategy
+     */
+    public ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : settings.getKeepAlive();
+        };
+    }
+    
+    /**
+     * Returns the current state of the pool. Waiting times are aggregated since the last
+     * call, this method should therefore only be called by the reporting thread.
+     * 
+     * @return the gauges by name
+     */
+    public Map<String, Long> getGauges() {
+        
+        // Collect and reset waiting times
+        long count = acquisitions.sumThenReset();
+        long total = waitTime.sumThenReset();
+        long max = maxWaitTime.getAndSet(0);
+        
+        // Collect gauges
+        PoolStats stats = connectionManager.getTotalStats();
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("Pool leased", (long) stats.getLeased());
+        gauges.put("Pool idle", (long) stats.getAvailable());
+        gauges.put("Pool pending", (long) stats.getPending());
+        gauges.put(GAUGE_WAITS, count);
+        gauges.put(GAUGE_WAIT_MEAN, count == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(total / count));
+        gauges.put(GAUGE_WAIT_MAX, TimeUnit.NANOSECONDS.toMicros(max));
+        return gauges;
+    }
+    
+    /**
+     * Closes all connections and stops the eviction.
+     */
+    public void close() {
+        this.evictor.shutdownNow();
+        this.connectionManager.shutdown();
+    }
+    
+    /**
+     * Records the time spent waiting for a connection. Thread safe.
+     * 
+     * @param nanos
+     */
+    private void recordWaitTime(long nanos) {
+        acquisitions.increment();
+        waitTime.add(nanos);
+        maxWaitTime.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Settings of the connection pool used by the HTTP transports. All times are given in milliseconds.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class ConnectionPoolSettings {
+    
+    /** Maximal number of connections in total. */
+    private int maxConnections = 256;
+    
+    /** Maximal number of connections per route, i.e. per target host. */
+    private int maxConnectionsPerRoute = 256;
+    
+    /** Timeout for establishing a connection. Zero means no timeout. */
+    private int connectTimeout = 10000;
+    
+    /** Timeout for waiting for data on an established connection. Zero means no timeout. */
+    private int readTimeout = 60000;
+    
+    /** Timeout for waiting for a connection from the pool. Zero means no timeout. */
+    private int connectionRequestTimeout = 60000;
+    
+    /** Time after which idle connections are evicted from the pool. */
+    private int idleTimeout = 60000;
+    
+    /** Time to keep a connection alive if the server does not specify a keep-alive timeout. */
+    private int keepAlive = 30000;
+    
+    /**
+     * Basic constructor using the default settings.
+     */
+    public ConnectionPoolSettings() {
+        // Empty by design
+    }
+    
+    /**
+     * Creates settings from the given configuration. Missing values are set to their defaults.
+     * 
+     * @param config the pool section of the configuration file, may be null
+     */
+    public ConnectionPoolSettings(Map<String, Object> config) {
+        if (config != null) {
+            this.maxConnections = (int) config.getOrDefault("maxConnections", maxConnections);
+            this.maxConnectionsPerRoute = (int) config.getOrDefault("maxConnectionsPerRoute", maxConnectionsPerRoute);
+            this.connectTimeout = (int) config.getOrDefault("connectTimeout", connectTimeout);
+            this.readTimeout = (int) config.getOrDefault("readTimeout", readTimeout);
+            this.connectionRequestTimeout = (int) config.getOrDefault("connectionRequestTimeout", connectionRequestTimeout);
+            this.idleTimeout = (int) config.getOrDefault("idleTimeout", idleTimeout);
+            this.keepAlive = (int) config.getOrDefault("keepAlive", keepAlive);
+        }
+        
+        // Checks
+        if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+            throw new IllegalStateException("Maximal number of connections must be greater than zero.");
+        }
+        if (connectTimeout < 0 || readTimeout < 0 || connectionRequestTimeout < 0 || idleTimeout <= 0 || keepAlive <= 0) {
+            throw new IllegalStateException("Timeouts must be zero or positive, idle timeout and keep alive must be positive.");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark.connector.ace;
+
+import java.net.URI;
+
+import lombok.Getter;
+
+/**
+ * An endpoint of the service, i.e. a path on a server. The full URI is resolved once, so that
+ * endpoints which are reused by many requests do not resolve it per request.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+@Getter
+public class Endpoint {
+    
+    /** The server. */
+    private final URI server;
+    
+    /** The path on the server. */
+    private final String path;
+    
+    /** The full URI as a string, used as the base of query strings. */
+    private final String address;
+    
+    /** The full URI. */
+    private final URI uri;
+    
+    /**
+     * Creates a new instance. The server and the path are joined with a single separator.
+     * 
+     * @param server
+     * @param path the encoded path
+     */
+    public Endpoint(URI server, String path) {
+        String base = server.toString();
+        while (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        this.server = server;
+        this.path = path;
+        this.address = path.startsWith("/") ? base + path : base + "/" + path;
+        this.uri = URI.create(address);
+    }
+    
+    /**
+     * Returns the full URI with the given query string.
+     * 
+     * @param query the encoded query string without the leading question mark, may be null
+     * @return the URI
+     */
+    public URI getURI(String query) {
+        return query == null ? uri : URI.create(address + '?' + query);
+    }
+}
@@ -17,21 +17,18 @@
 package org.trustdeck.benchmark.connector.ace;
 
 import java.net.URI;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.Entity;
-import jakarta.ws.rs.client.Invocation.Builder;
-import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.MediaType;
-import jakarta.ws.rs.core.Response;
+import lombok.Getter;
 
 /**
- * This class is used to build and execute HTTP requests.
+ * This class is used to build and execute HTTP requests. Requests are executed
+ * with the transport provided by the {@link ClientManager}.
  * 
  * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
  */
+@Getter
 public class HTTPRequest {
     
     /**
@@ -52,14 +49,8 @@ public class HTTPRequest {
         APPLICATION_JSON
     };
     
-    /** The web client object needed to generate and send requests. */
-    private final Client client;
-    
-    /** The server to where the request should go to. */
-    private final URI server;
-    
-    /** The path on the server where the request should go to. */
-    private final String path;
+    /** The endpoint where the request should go to. */
+    private final Endpoint endpoint;
     
     /** The type of the request (GET, POST, ...). */
     private final HTTPRequestType requestType;
@@ -67,70 +58,82 @@ public class HTTPRequest {
     /** The authentication token needed to authenticate the request. */
     private final String authToken;
     
+    /** The value of the authorization header. */
+    private final String authorization;
+    
     /** The request body if needed. */
     private final String body;
     
+    /** The request body encoded as UTF-8. Used instead of the body, if not null. */
+    private final byte[] encodedBody;
+    
     /** The request body's mediaType if applicable. */
     private final HTTPMediaType bodyMediaType;
     
-    /** Represents the request parameters. */
-    private final Map<String, String> parameters;
+    /** The encoded query string, null if there is none. */
+    private final String query;
     
     /**
-     * Creates a new instance
-     * @param server
-     * @param path
+     * Creates a new instance for an endpoint.
+     * 
+     * @param endpoint
      * @param requestType
-     * @param authToken
-     * @param parameters
+     * @param token
+     * @param query the encoded query string without the leading question mark, may be null
      */
-    public HTTPRequest(URI server,
-                       String path,
-                       HTTPRequestType requestType,
-                       String authToken,
-                       Map<String, String> parameters) {
-        this(server, path, requestType, authToken, null, null, parameters);
+    public HTTPRequest(Endpoint endpoint, HTTPRequestType requestType, ACEToken token, String query) {
+        this(endpoint, requestType, token.getToken(), token.getAuthorization(), null, null, HTTPMediaType.TEXT_PLAIN, query);
     }
-
+    
     /**
-     * Creates a new instance.
+     * Creates a new instance for an endpoint with a JSON body.
      * 
-     * @param server
-     * @param path
+     * @param endpoint
      * @param requestType
-     * @param authToken
+     * @param token
      * @param body
-     * @param bodyMediaType
+     * @param query the encoded query string without the leading question mark, may be null
      */
-    public HTTPRequest(URI server, String path, HTTPRequestType requestType, String authToken, String body, HTTPMediaType bodyMediaType) {
-    	this(server, path, requestType, authToken, body, 
-        		bodyMediaType != null ? bodyMediaType : 
-        			(requestType == HTTPRequestType.POST || requestType == HTTPRequestType.PUT ? HTTPMediaType.APPLICATION_JSON : HTTPMediaType.TEXT_PLAIN),
-        		null);
+    public HTTPRequest(Endpoint endpoint, HTTPRequestType requestType, ACEToken token, String body, String query) {
+        this(endpoint, requestType, token.getToken(), token.getAuthorization(), body, null, HTTPMediaType.APPLICATION_JSON, query);
+    }
+    
+    /**
+     * Creates a new instance for an endpoint with a JSON body that is already encoded.
+     * 
+     * @param endpoint
+     * @param requestType
+     * @param token
+     * @param encodedBody
+     * @param query the encoded query string without the leading question mark, may be null
+     */
+    public HTTPRequest(Endpoint endpoint, HTTPRequestType requestType, ACEToken token, byte[] encodedBody, String query) {
+        this(endpoint, requestType, token.getToken(), token.getAuthorization(), null, encodedBody, HTTPMediaType.APPLICATION_JSON, query);
     }
     
     /**
      * Creates a new instance.
      * 
-     * @param server
-     * @param path
+     * @param endpoint
      * @param requestType
      * @param authToken
+     * @param authorization
      * @param body
+     * @param encodedBody
      * @param bodyMediaType
-     * @param parameters
+     * @param query
      */
-    public HTTPRequest(URI server, String path, HTTPRequestType requestType, String authToken, String body, HTTPMediaType bodyMediaType, Map<String, String> parameters) {
-        this.client = ClientManager.getClient();
-        this.server = server;
-        this.path = path;
+    private HTTPRequest(Endpoint endpoint, HTTPRequestType requestType, String authToken, String authorization, String body, byte[] encodedBody, HTTPMediaType bodyMediaType, String query) {
+        this.endpoint = endpoint;
         this.requestType = requestType;
         this.authToken = authToken;
+        this.authorization = authorization;
         this.body = body;
+        this.encodedBody = encodedBody;
         this.bodyMediaType =  bodyMediaType != null ? bodyMediaType :
                 (requestType == HTTPRequestType.POST || requestType == HTTPRequestType.PUT) ? 
                         HTTPMediaType.APPLICATION_JSON : HTTPMediaType.TEXT_PLAIN;
-        this.parameters = parameters;
+        this.query = query;
     }
     
     /**
@@ -139,67 +142,90 @@ public class HTTPRequest {
      * @return the request's response as a string
      */
     public String execute() {
-        
-        // Create target
-        // newClient might be expensive? Use one client?
-    	//Client client = ClientBuilder.newClient();
-		try {
-			WebTarget target = this.client.target(server).path(path);
-			
-			if (parameters != null && !parameters.isEmpty()) {
-				for (Entry<String, String> parameter : parameters.entrySet()) {
-					target = target.queryParam(parameter.getKey(), parameter.getValue());
-				}
-			}
-			
-			// Build request
-			Builder builder = target.request();
-			builder.header("Authorization", String.format("Bearer %s", authToken));
-			
-			// Handle media type
-			String type = null;
-			
-			switch (bodyMediaType) {
-				case APPLICATION_JSON:
-					type = MediaType.APPLICATION_JSON;
-					break;
-				case TEXT_PLAIN:
-					type = MediaType.TEXT_PLAIN;
-					break;
-				default:
-					throw new IllegalStateException("Unknown media type");
-			}
-			
-			// Execute request
-			Response response = null;
-			
-			switch (requestType) {
-				case GET:
-					response = builder.get(Response.class);
-					break;
-				case POST:
-					if (body == null || type == null) {
-						throw new IllegalArgumentException("Body and media type must not be null.");
-					}
-					response = builder.post(Entity.entity(body, type));
-					break;
-				case PUT:
-					if (body == null || type == null) {
-						throw new IllegalArgumentException("Body and media type must not be null.");
-					}
-					response = builder.put(Entity.entity(body, type));
-					break;
-				case DELETE:
-					response = builder.delete(Response.class);
-					break;
-				default:
-					throw new IllegalStateException("Unknown request type.");
-			}
-			
-			// Read and return the response entity
-			return response.readEntity(String.class);
-		} finally {
-			// Do nothing
-		}
+        return check(ClientManager.getTransport().execute(this));
+    }
+    
+    /**
+     * Execute the request asynchronously.
+     * 
+     * @return a future completing with the request's response as a string
+     */
+    public CompletableFuture<String> executeAsync() {
+        return ClientManager.getTransport().executeAsync(this).thenApply(this::check);
+    }
+    
+    /**
+     * Checks the status of a response.
+     * 
+     * @param response
+     * @return the response's body
+     * @throws HTTPException if the status indicates an error
+     */
+    private String check(HTTPResponse response) {
+        if (response.getStatusCode() >= 400) {
+            throw new HTTPException(requestType + " " + endpoint.getPath() + " failed with status " + response.getStatusCode(), response.getStatusCode());
+        }
+        return response.getBody();
+    }
+    
+    /**
+     * Returns the server where the request should go to.
+     * 
+     * @return the server
+     */
+    public URI getServer() {
+        return endpoint.getServer();
+    }
+    
+    /**
+     * Returns the path on the server where the request should go to.
+     * 
+     * @return the path
+     */
+    public String getPath() {
+        return endpoint.getPath();
+    }
+    
+    /**
+     * Returns whether this request carries a body.
+     * 
+     * @return
+     */
+    public boolean hasBody() {
+        return requestType == HTTPRequestType.POST || requestType == HTTPRequestType.PUT;
+    }
+    
+    /**
+     * Returns whether the body of this request is missing.
+     * 
+     * @return
+     */
+    public boolean isBodyMissing() {
+        return body == null && encodedBody == null;
+    }
+    
+    /**
+     * Returns the content type of the body.
+     * 
+     * @return the content type
+     */
+    public String getContentType() {
+        switch (bodyMediaType) {
+            case APPLICATION_JSON:
+                return MediaType.APPLICATION_JSON;
+            case TEXT_PLAIN:
+                return MediaType.TEXT_PLAIN;
+            default:
+                throw new IllegalStateException("Unknown media type");
+        }
+    }
+    
+    /**
+     * Returns the full URI of the request including the query parameters.
+     * 
+     * @return the URI
+     */
+    public URI getURI() {
+        return endpoint.getURI(query);
     }
 }
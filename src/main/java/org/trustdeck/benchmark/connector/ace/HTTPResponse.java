@@ -0,0 +1,58 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+/**
+ * This class represents the response to an HTTP request.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class HTTPResponse {
+    
+    /** The status code. */
+    private final int statusCode;
+    
+    /** The response body. */
+    private final String body;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param statusCode
+     * @param body
+     */
+    public HTTPResponse(int statusCode, String body) {
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+    
+    /**
+     * Retrieves the status code.
+     * @return the response's status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * Retrieves the body.
+     * @return the response's body
+     */
+    public String getBody() {
+        return body;
+    }
+}
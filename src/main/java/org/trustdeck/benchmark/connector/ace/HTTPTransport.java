@@ -0,0 +1,69 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for the HTTP client libraries used to send requests to the service.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public interface HTTPTransport {
+    
+    /**
+     * Available transports.
+     */
+    public enum HTTPTransportType {
+        /** Jersey client using the Apache connector with the configured pool. Occupies a thread per request in async mode. */
+        JERSEY,
+        /** JDK HttpClient using HTTP/2 where possible. Non-blocking in async mode. */
+        JDK,
+        /** Apache HttpClient with a pooling connection manager. Occupies a thread per request in async mode. */
+        APACHE
+    };
+    
+    /**
+     * Executes a request and blocks until the response is available.
+     * 
+     * @param request
+     * @return the response
+     * @throws HTTPException
+     */
+    HTTPResponse execute(HTTPRequest request) throws HTTPException;
+    
+    /**
+     * Executes a request asynchronously.
+     * 
+     * @param request
+     * @return a future completing with the response
+     */
+    CompletableFuture<HTTPResponse> executeAsync(HTTPRequest request);
+    
+    /**
+     * Returns live gauges of the transport, e.g. of its connection pool.
+     * 
+     * @return the gauges by name
+     */
+    Map<String, Long> getGauges();
+    
+    /**
+     * Releases all resources held by the transport.
+     */
+    void close();
+}
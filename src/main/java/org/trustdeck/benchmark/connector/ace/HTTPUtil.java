@@ -16,6 +16,9 @@
  */
 package org.trustdeck.benchmark.connector.ace;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 import jakarta.ws.rs.core.Response;
 
 /**
@@ -43,4 +46,72 @@ public class HTTPUtil {
         throw new HTTPException(String.format("Error executing HTTP request with return code %s and body %s",
                                 response.getStatus(), body));
     }
+    
+    /**
+     * Builds a query string with one parameter.
+     * 
+     * @param name
+     * @param value
+     * @return the encoded query string without the leading question mark
+     */
+    public static String query(String name, String value) {
+        StringBuilder query = new StringBuilder(name.length() + value.length() + 1);
+        append(query, name, value);
+        return query.toString();
+    }
+    
+    /**
+     * Builds a query string with two parameters.
+     * 
+     * @param name1
+     * @param value1
+     * @param name2
+     * @param value2
+     * @return the encoded query string without the leading question mark
+     */
+    public static String query(String name1, String value1, String name2, String value2) {
+        StringBuilder query = new StringBuilder(name1.length() + value1.length() + name2.length() + value2.length() + 3);
+        append(query, name1, value1);
+        query.append('&');
+        append(query, name2, value2);
+        return query.toString();
+    }
+    
+    /**
+     * Encodes a segment of a path, e.g. the name of a domain.
+     * 
+     * @param segment
+     * @return the encoded segment
+     */
+    public static String segment(String segment) {
+        return encode(segment).replace("+", "%20");
+    }
+    
+    /**
+     * Appends an encoded parameter to a query string.
+     * 
+     * @param query
+     * @param name
+     * @param value
+     */
+    private static void append(StringBuilder query, String name, String value) {
+        query.append(encode(name)).append('=').append(encode(value));
+    }
+    
+    /**
+     * Encodes a component of a query string. Components consisting of unreserved characters only,
+     * like the identifiers of the benchmark, are returned as they are.
+     * 
+     * @param component
+     * @return the encoded component
+     */
+    private static String encode(String component) {
+        for (int i = 0; i < component.length(); i++) {
+            char c = component.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '_' || c == '*')) {
+                return URLEncoder.encode(component, StandardCharsets.UTF_8);
+            }
+        }
+        return component;
+    }
 }
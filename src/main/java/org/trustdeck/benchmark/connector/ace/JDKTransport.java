@@ -0,0 +1,135 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport based on the JDK's HttpClient. Prefers HTTP/2, falls back to HTTP/1.1 if the
+ * server does not support it. Asynchronous requests are fully non-blocking.
+ * The JDK's connection pool is not observable and can only be configured through system
+ * properties, which are read once when the first client is created. This transport therefore
+ * honors the pool size and keep-alive settings only if they have not been set before and only
+ * reports the number of requests in flight.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class JDKTransport implements HTTPTransport {
+    
+    /** The settings of the connection pool. */
+    private final ConnectionPoolSettings settings;
+    
+    /** The client object needed to generate and send requests. */
+    private final HttpClient client;
+    
+    /** Number of requests in flight. */
+    private final AtomicLong inFlight = new AtomicLong();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param settings the settings of the connection pool
+     */
+    public JDKTransport(ConnectionPoolSettings settings) {
+        this.settings = settings;
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(settings.getMaxConnections()));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(Math.max(1, settings.getKeepAlive() / 1000)));
+        }
+        HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2);
+        if (settings.getConnectTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(settings.getConnectTimeout()));
+        }
+        this.client = builder.build();
+    }
+    
+    @Override
+    public HTTPResponse execute(HTTPRequest request) throws HTTPException {
+        inFlight.incrementAndGet();
+        try {
+            HttpResponse<String> response = client.send(build(request), BodyHandlers.ofString());
+            return new HTTPResponse(response.statusCode(), response.body());
+        } catch (IOException e) {
+            throw new HTTPException("Error executing HTTP request", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HTTPException("Interrupted while executing HTTP request", e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    @Override
+    public CompletableFuture<HTTPResponse> executeAsync(HTTPRequest request) {
+        inFlight.incrementAndGet();
+        return client.sendAsync(build(request), BodyHandlers.ofString())
+                     .whenComplete((response, error) -> inFlight.decrementAndGet())
+                     .thenApply(response -> new HTTPResponse(response.statusCode(), response.body()));
+    }
+    
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("Requests in flight", inFlight.get());
+        return gauges;
+    }
+    
+    @Override
+    public void close() {
+        // Nothing to do, the client is released when it becomes unreachable
+    }
+    
+    /**
+     * Builds the JDK request object.
+     * 
+     * @param request
+     * @return the request object
+     */
+    java.net.http.HttpRequest build(HTTPRequest request) {
+        
+        // Build request
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getURI());
+        builder.header("Authorization", request.getAuthorization());
+        if (settings.getReadTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(settings.getReadTimeout()));
+        }
+        
+        // Handle media type and body
+        BodyPublisher publisher = BodyPublishers.noBody();
+        if (request.hasBody()) {
+            if (request.isBodyMissing()) {
+                throw new IllegalArgumentException("Body and media type must not be null.");
+            }
+            builder.header("Content-Type", request.getContentType());
+            publisher = request.getEncodedBody() != null ? BodyPublishers.ofByteArray(request.getEncodedBody()) : BodyPublishers.ofString(request.getBody());
+        }
+        builder.method(request.getRequestType().name(), publisher);
+        return builder.build();
+    }
+}
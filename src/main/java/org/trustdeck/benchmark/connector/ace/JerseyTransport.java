@@ -0,0 +1,196 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation.Builder;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Transport based on the Jersey client. Connections are managed by the configured
+ * {@link ConnectionPool} through Jersey's Apache connector. Asynchronous requests
+ * are executed on Jersey's internal thread pool.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class JerseyTransport implements HTTPTransport {
+    
+    /** Maximal number of cached targets. */
+    private static final int MAX_TARGETS = 1024;
+    
+    /** The connection pool. */
+    private final ConnectionPool pool;
+    
+    /** The web client object needed to generate and send requests. */
+    private final Client client;
+    
+    /** Targets of endpoints. Endpoints are compared by identity, as the service reuses them. */
+    private final Map<Endpoint, WebTarget> targets = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param settings the settings of the connection pool
+     */
+    public JerseyTransport(ConnectionPoolSettings settings) {
+        this.pool = new ConnectionPool(settings);
+        ClientConfig config = new ClientConfig();
+        config.connectorProvider(new ApacheConnectorProvider());
+        config.property(ApacheClientProperties.CONNECTION_MANAGER, pool.getConnectionManager());
+        config.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+        config.property(ApacheClientProperties.REQUEST_CONFIG, pool.getRequestConfig());
+        config.property(ApacheClientProperties.KEEPALIVE_STRATEGY, pool.getKeepAliveStrategy());
+        config.property(ClientProperties.CONNECT_TIMEOUT, settings.getConnectTimeout());
+        config.property(ClientProperties.READ_TIMEOUT, settings.getReadTimeout());
+        config.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED);
+        this.client = ClientBuilder.newClient(config);
+    }
+    
+    @Override
+    public HTTPResponse execute(HTTPRequest request) throws HTTPException {
+        
+        // Build and execute request
+        Builder builder = builder(request);
+        Response response = null;
+        switch (request.getRequestType()) {
+            case GET:
+                response = builder.get(Response.class);
+                break;
+            case POST:
+                response = builder.post(entity(request));
+                break;
+            case PUT:
+                response = builder.put(entity(request));
+                break;
+            case DELETE:
+                response = builder.delete(Response.class);
+                break;
+            default:
+                throw new IllegalStateException("Unknown request type.");
+        }
+        
+        // Read and return the response entity
+        return new HTTPResponse(response.getStatus(), response.readEntity(String.class));
+    }
+    
+    @Override
+    public CompletableFuture<HTTPResponse> executeAsync(HTTPRequest request) {
+        
+        // Build and execute request
+        Builder builder = builder(request);
+        CompletableFuture<Response> future = null;
+        switch (request.getRequestType()) {
+            case GET:
+                future = builder.rx().get().toCompletableFuture();
+                break;
+            case POST:
+                future = builder.rx().post(entity(request)).toCompletableFuture();
+                break;
+            case PUT:
+                future = builder.rx().put(entity(request)).toCompletableFuture();
+                break;
+            case DELETE:
+                future = builder.rx().delete().toCompletableFuture();
+                break;
+            default:
+                throw new IllegalStateException("Unknown request type.");
+        }
+        
+        // Read and return the response entity
+        return future.thenApply(response -> new HTTPResponse(response.getStatus(), response.readEntity(String.class)));
+    }
+    
+    @Override
+    public Map<String, Long> getGauges() {
+        return pool.getGauges();
+    }
+    
+    @Override
+    public void close() {
+        this.client.close();
+        this.pool.close();
+    }
+    
+    /**
+     * Creates the target and the invocation builder for a request.
+     * 
+     * @param request
+     * @return the builder
+     */
+    Builder builder(HTTPRequest request) {
+        
+        // Create target. Targets without query are cached, targets with query are created from the
+        // complete URI, which is cheaper than adding the parameters to a cached target.
+        WebTarget target;
+        if (request.getQuery() == null) {
+            target = target(request.getEndpoint());
+        } else {
+            target = this.client.target(request.getURI());
+        }
+        
+        // Build request
+        Builder builder = target.request();
+        builder.header("Authorization", request.getAuthorization());
+        return builder;
+    }
+    
+    /**
+     * Returns the cached target of an endpoint.
+     * 
+     * @param endpoint
+     * @return the target
+     */
+    private WebTarget target(Endpoint endpoint) {
+        WebTarget target = targets.get(endpoint);
+        if (target == null) {
+            target = this.client.target(endpoint.getUri());
+            if (targets.size() < MAX_TARGETS) {
+                targets.put(endpoint, target);
+            }
+        }
+        return target;
+    }
+    
+    /**
+     * Creates the entity of a request.
+     * 
+     * @param request
+     * @return the entity
+     */
+    private Entity<?> entity(HTTPRequest request) {
+        if (request.isBodyMissing()) {
+            throw new IllegalArgumentException("Body and media type must not be null.");
+        }
+        if (request.getEncodedBody() != null) {
+            return Entity.entity(request.getEncodedBody(), request.getContentType());
+        }
+        return Entity.entity(request.getBody(), request.getContentType());
+    }
+}
@@ -18,6 +18,7 @@ package org.trustdeck.benchmark.connector.ace;
 
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.AccessTokenResponse;
 
 /**
  * Information needed for authentication.
@@ -105,9 +106,9 @@ public class KeycloakAuthentication {
     /**
      * Returns an authentication token.
      * 
-     * @return the authentication token as a string.
+     * @return the authentication token including its lifetime.
      */
-    public String authenticate() throws HTTPException {
+    public AccessTokenResponse authenticate() throws HTTPException {
         // Check that all necessary parameters are set
         if (username == null || password == null || clientId == null || clientSecret == null || keycloakAuthenticationURI == null || keycloakRealmName == null) {
             throw new NullPointerException("All parameters must not be null!");
@@ -116,17 +117,16 @@ public class KeycloakAuthentication {
         // Retrieve access token
         Keycloak instance = Keycloak.getInstance(keycloakAuthenticationURI, keycloakRealmName, username, password, clientId, clientSecret);
         tokenmanager = instance.tokenManager();
-        String accessToken = tokenmanager.getAccessTokenString();
 
-    	return accessToken;
+    	return tokenmanager.getAccessToken();
     }
     
     /**
      * Refreshes an authentication token.
      * 
-     * @return a refreshed access token
+     * @return a refreshed access token including its lifetime
      */
-    public String refreshToken() {
-    	return tokenmanager.refreshToken().getToken();
+    public AccessTokenResponse refreshToken() {
+    	return tokenmanager.refreshToken();
     }
 }
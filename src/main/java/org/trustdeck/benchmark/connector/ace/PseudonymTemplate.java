@@ -0,0 +1,110 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.trustdeck.benchmark.connector.ace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pre-encoded JSON body of a pseudonym. The constant parts are encoded once, by the mapper that
+ * encodes the bodies otherwise, so that both produce identical bytes. Per request, only the
+ * identifier is written into a new array of the exact size.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+class PseudonymTemplate {
+    
+    /** Marker of the position of the identifier. */
+    private static final String MARKER = "{{id}}";
+    
+    /** Type of identifier. */
+    private final String idType;
+    
+    /** Start of validity. */
+    private final String validFrom;
+    
+    /** Validity time. */
+    private final String validityTime;
+    
+    /** Encoded part before the identifier. */
+    private final byte[] prefix;
+    
+    /** Encoded part after the identifier. */
+    private final byte[] suffix;
+    
+    /**
+     * Creates a template for all pseudonyms whose fields, except for the identifier, equal the given one's.
+     * 
+     * @param mapper
+     * @param pseudonym
+     * @throws JsonProcessingException
+     */
+    PseudonymTemplate(ObjectMapper mapper, ACEPseudonym pseudonym) throws JsonProcessingException {
+        this.idType = pseudonym.getIdType();
+        this.validFrom = pseudonym.getValidFrom();
+        this.validityTime = pseudonym.getValidityTime();
+        
+        // Encode the prototype and split it at the marker
+        String encoded = mapper.writer().writeValueAsString(new ACEPseudonym(MARKER, idType, validFrom, validityTime));
+        int index = encoded.indexOf(MARKER);
+        if (index < 0 || encoded.indexOf(MARKER, index + 1) >= 0) {
+            throw new IllegalStateException("Body can not be used as a template: " + encoded);
+        }
+        this.prefix = encoded.substring(0, index).getBytes(StandardCharsets.UTF_8);
+        this.suffix = encoded.substring(index + MARKER.length()).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Returns whether this template applies to the given pseudonym.
+     * 
+     * @param pseudonym
+     * @return
+     */
+    boolean matches(ACEPseudonym pseudonym) {
+        return Objects.equals(idType, pseudonym.getIdType()) &&
+               Objects.equals(validFrom, pseudonym.getValidFrom()) &&
+               Objects.equals(validityTime, pseudonym.getValidityTime());
+    }
+    
+    /**
+     * Encodes the body for the given identifier.
+     * 
+     * @param id
+     * @return the body or null, if the identifier must be escaped
+     */
+    byte[] encode(String id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] body = new byte[prefix.length + id.length() + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        int offset = prefix.length;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return null;
+            }
+            body[offset++] = (byte) c;
+        }
+        System.arraycopy(suffix, 0, body, offset, suffix.length);
+        return body;
+    }
+}
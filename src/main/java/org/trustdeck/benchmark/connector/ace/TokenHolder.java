@@ -0,0 +1,162 @@
+/*
+ * ACE-Benchmark Driver
+ * Copyright 2024 Armin Mller and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustdeck.benchmark.connector.ace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.keycloak.representations.AccessTokenResponse;
+
+/**
+ * Holds the access token shared by all workers. The token is refreshed ahead of its expiry
+ * by a single background thread, based on the lifetime reported by Keycloak. Reading the
+ * token is lock-free, so that the workers never wait for Keycloak.
+ * 
+ * @author Armin Mller, Felix N. Wirth, and Fabian Prasser
+ */
+public class TokenHolder {
+    
+    /** Gauge of the duration of the last refresh. */
+    public static final String GAUGE_REFRESH_TIME = "Token refresh time [ms]";
+    
+    /** Token lifetime used if Keycloak does not report one, in milliseconds. */
+    private static final long DEFAULT_TOKEN_LIFETIME = 300000;
+    
+    /** Fraction of the token's lifetime after which it is refreshed. */
+    private static final double REFRESH_RATIO = 0.8d;
+    
+    /** Delay before retrying a failed refresh in milliseconds. */
+    private static final long RETRY_DELAY = 1000;
+    
+    /** Authentication. */
+    private final KeycloakAuthentication authentication;
+    
+    /** Access token. Marked volatile, so that every thread sees refreshed tokens. */
+    private volatile ACEToken token;
+    
+    /** Lock guarding the initial authentication. */
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    /** Refreshes the token in the background. */
+    private final ScheduledExecutorService scheduler;
+    
+    /** Number of successful refreshes. */
+    private final AtomicLong refreshes = new AtomicLong();
+    
+    /** Number of failed refreshes. */
+    private final AtomicLong failures = new AtomicLong();
+    
+    /** Duration of the last refresh in nanoseconds. */
+    private volatile long lastRefreshTime = 0;
+    
+    /**
+     * Creates a new instance.
+     * 
+     * @param authentication
+     */
+    public TokenHolder(KeycloakAuthentication authentication) {
+        this.authentication = authentication;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Returns a valid access token. Authenticates on first access, afterwards lock-free. Thread safe.
+     * 
+     * @return the access token
+     */
+    public ACEToken getToken() {
+        ACEToken result = this.token;
+        if (result == null) {
+            lock.lock();
+            try {
+                if (this.token == null) {
+                    AccessTokenResponse response = authentication.authenticate();
+                    this.token = new ACEToken(response.getToken());
+                    schedule(response);
+                }
+                result = this.token;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns metrics about token refreshes.
+     * 
+     * @return the metrics by name
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("Token refreshes", refreshes.get());
+        gauges.put("Token refresh failures", failures.get());
+        gauges.put(GAUGE_REFRESH_TIME, TimeUnit.NANOSECONDS.toMillis(lastRefreshTime));
+        return gauges;
+    }
+    
+    /**
+     * Stops refreshing the token.
+     */
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+    
+    /**
+     * Schedules the next refresh according to the lifetime of the given token.
+     * 
+     * @param response
+     */
+    private void schedule(AccessTokenResponse response) {
+        long lifetime = response.getExpiresIn() > 0 ? TimeUnit.SECONDS.toMillis(response.getExpiresIn()) : DEFAULT_TOKEN_LIFETIME;
+        scheduler.schedule(this::refresh, (long) (lifetime * REFRESH_RATIO), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Refreshes the token. Falls back to a new authentication if the refresh token has expired.
+     * Runs on the background thread only.
+     */
+    private void refresh() {
+        long start = System.nanoTime();
+        AccessTokenResponse response;
+        try {
+            response = authentication.refreshToken();
+        } catch (Exception e) {
+            try {
+                response = authentication.authenticate();
+            } catch (Exception e2) {
+                // Keep the old token and try again shortly
+                failures.incrementAndGet();
+                scheduler.schedule(this::refresh, RETRY_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        this.token = new ACEToken(response.getToken());
+        this.lastRefreshTime = System.nanoTime() - start;
+        this.refreshes.incrementAndGet();
+        schedule(response);
+    }
+}